@@ -0,0 +1,33 @@
+#!/usr/bin/env bash
+# Compares the platform-thread pool with virtual threads under the same load.
+# Requires a built jar (mvn package), a running MySQL with the usual DB_* and APP_* variables
+# exported, and the `hey` load generator (https://github.com/rakyll/hey) on the PATH.
+# Virtual threads are only used on Java 21+; on Java 17 both runs use the Tomcat pool.
+set -euo pipefail
+
+JAR=${JAR:-$(ls target/e-commerce-shop-*.jar | head -n 1)}
+PORT=${PORT:-8080}
+DURATION=${DURATION:-30s}
+CONCURRENCY=${CONCURRENCY:-200}
+URL=${URL:-http://localhost:${PORT}/api/products?page=0&size=20}
+
+run_mode() {
+  local mode=$1 virtual=$2
+  APP_VIRTUAL_THREADS=$virtual java -jar "$JAR" --server.port="$PORT" --spring.jpa.show-sql=false > "target/load-test-$mode.log" 2>&1 &
+  local pid=$!
+  trap 'kill $pid 2>/dev/null' RETURN
+
+  until curl -sf "http://localhost:${PORT}/actuator/health" > /dev/null; do sleep 1; done
+  hey -z 5s -c "$CONCURRENCY" "$URL" > /dev/null   # warm-up
+  hey -z "$DURATION" -c "$CONCURRENCY" "$URL" > "target/load-test-$mode.txt"
+
+  printf '%-10s %12s %10s %10s\n' "$mode" \
+    "$(awk '/Requests\/sec/ {print $2}' "target/load-test-$mode.txt")" \
+    "$(awk '/ 50% in/ {print $3}' "target/load-test-$mode.txt")" \
+    "$(awk '/ 99% in/ {print $3}' "target/load-test-$mode.txt")"
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+}
+
+printf '%-10s %12s %10s %10s\n' mode "req/sec" "p50 (s)" "p99 (s)"
+run_mode platform false
+run_mode virtual true
@@ -0,0 +1,66 @@
+package com.startstepszalando.ecommerceshop.benchmark;
+
+import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import com.startstepszalando.ecommerceshop.order.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout hot path: adding to the cart, pricing the cart and turning it into an order.
+ * Throughput is reported in ops/sec, sample time gives the latency percentiles (p99 included), and the
+ * {@code gc} profiler enabled by the benchmark profile reports the allocation rate.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    @State(Scope.Thread)
+    public static class CartLineCursor {
+        private int next;
+
+        Long nextProductId(ShopState shop) {
+            Long productId = shop.cartProductIds.get(next);
+            next = (next + 1) % shop.cartProductIds.size();
+            return productId;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FilledCart {
+        // Checkout empties the cart, so it is refilled outside the measured call.
+        @Setup(Level.Invocation)
+        public void refill(ShopState shop) {
+            shop.jdbcTemplate.update("DELETE FROM cart_item WHERE cart_id = ?", shop.cartId);
+            shop.fillCart();
+        }
+    }
+
+    @Benchmark
+    public void addProductToCart(ShopState shop, CartLineCursor cursor) throws Exception {
+        shop.cartService.addProductToCart(cursor.nextProductId(shop), 1);
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotalCost(ShopState shop) {
+        return shop.cartService.calculateTotalCost();
+    }
+
+    @Benchmark
+    public Order createOrderFromCart(ShopState shop, FilledCart filledCart) {
+        // Mirrors a request: the cart is loaded and checked out in one persistence context,
+        // as open-in-view provides for OrderController.
+        return shop.transactionTemplate.execute(status -> {
+            Cart cart = shop.cartService.getMyCart();
+            try {
+                return shop.orderService.createOrderFromCart(cart);
+            } catch (Exception e) {
+                throw new IllegalStateException("Checkout failed", e);
+            }
+        });
+    }
+}
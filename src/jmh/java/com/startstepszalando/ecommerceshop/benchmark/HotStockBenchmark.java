@@ -0,0 +1,81 @@
+package com.startstepszalando.ecommerceshop.benchmark;
+
+import com.startstepszalando.ecommerceshop.ECommerceShopApplication;
+import com.startstepszalando.ecommerceshop.product.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contended stock decrements of a single product: every thread buys the same SKU, once through
+ * the guarded row update and once through the hot SKU quota. The stock is large enough that
+ * neither path runs out during a trial.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class HotStockBenchmark {
+    private static final long HOT_PRODUCT_ID = 1;
+    private static final long ROW_PRODUCT_ID = 2;
+    private static final int UNLIMITED_STOCK = 1_000_000_000;
+
+    @State(Scope.Benchmark)
+    public static class StockState {
+        @Param({"8"})
+        public int stripes;
+
+        ConfigurableApplicationContext context;
+        ProductService productService;
+
+        @Setup(Level.Trial)
+        public void startApplication() {
+            context = new SpringApplicationBuilder(ECommerceShopApplication.class).run(
+                    "--spring.main.web-application-type=none",
+                    "--spring.main.banner-mode=off",
+                    "--spring.datasource.url=jdbc:h2:mem:hot-stock;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=create",
+                    "--spring.jpa.show-sql=false",
+                    "--app.secret-key=YmVuY2htYXJrLXNpZ25pbmcta2V5LW9mLWF0LWxlYXN0LTMyLWJ5dGVz",
+                    "--app.jwt.cookie=benchmark",
+                    "--app.jwt.expiration-ms=3600000",
+                    "--app.products.hot.enabled=true",
+                    "--app.products.hot.ids=" + HOT_PRODUCT_ID,
+                    "--app.products.hot.stripes=" + stripes,
+                    "--app.products.hot.quota-per-stripe=10000",
+                    "--app.products.hot.rebalance-interval=PT0.01S",
+                    "--logging.level.root=WARN");
+
+            productService = context.getBean(ProductService.class);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            for (long id : new long[]{HOT_PRODUCT_ID, ROW_PRODUCT_ID}) {
+                jdbcTemplate.update("INSERT INTO products (id, name, price, description, stock, version) " +
+                        "VALUES (?, ?, 10, 'Benchmark product', ?, 0)", id, "Product " + id, UNLIMITED_STOCK);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stopApplication() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public void rowDecrement(StockState state) throws Exception {
+        state.productService.updateProductStock(ROW_PRODUCT_ID, 1);
+    }
+
+    @Benchmark
+    public void hotQuotaDecrement(StockState state) throws Exception {
+        state.productService.updateProductStock(HOT_PRODUCT_ID, 1);
+    }
+}
@@ -0,0 +1,85 @@
+package com.startstepszalando.ecommerceshop.benchmark;
+
+import com.startstepszalando.ecommerceshop.ECommerceShopApplication;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logins through the authentication manager, as {@code POST /api/users/login} performs them,
+ * for several BCrypt costs. Hashing is CPU bound, so {@code loginPerCore} on one thread reports
+ * logins/sec per core; {@code loginAllCores} shows what the bounded hashing pool sustains with
+ * one caller per core and should come close to that figure times the core count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+    private static final String EMAIL = "customer@benchmark.local";
+    private static final String PASSWORD = "benchmark-password";
+
+    @State(Scope.Benchmark)
+    public static class LoginState {
+        @Param({"8", "10", "12"})
+        public int strength;
+
+        ConfigurableApplicationContext context;
+        AuthenticationManager authenticationManager;
+
+        @Setup(Level.Trial)
+        public void startApplication() {
+            context = new SpringApplicationBuilder(ECommerceShopApplication.class).run(
+                    "--spring.main.web-application-type=none",
+                    "--spring.main.banner-mode=off",
+                    "--spring.datasource.url=jdbc:h2:mem:login;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=create",
+                    "--spring.jpa.show-sql=false",
+                    "--app.secret-key=YmVuY2htYXJrLXNpZ25pbmcta2V5LW9mLWF0LWxlYXN0LTMyLWJ5dGVz",
+                    "--app.jwt.cookie=benchmark",
+                    "--app.jwt.expiration-ms=3600000",
+                    "--app.security.password.bcrypt-strength=" + strength,
+                    "--logging.level.root=WARN");
+
+            authenticationManager = context.getBean(AuthenticationManager.class);
+            String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+            context.getBean(UserRepository.class)
+                    .save(new User(null, "Benchmark Customer", EMAIL, hash, Role.CUSTOMER));
+        }
+
+        @TearDown(Level.Trial)
+        public void stopApplication() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Authentication loginPerCore(LoginState state) {
+        return login(state);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Authentication loginAllCores(LoginState state) {
+        return login(state);
+    }
+
+    private static Authentication login(LoginState state) {
+        return state.authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD));
+    }
+}
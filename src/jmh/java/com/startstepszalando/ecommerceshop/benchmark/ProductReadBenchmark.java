@@ -0,0 +1,113 @@
+package com.startstepszalando.ecommerceshop.benchmark;
+
+import com.startstepszalando.ecommerceshop.ECommerceShopApplication;
+import com.startstepszalando.ecommerceshop.config.ReactiveReadServer;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product reads over HTTP from many concurrent clients, once against the MVC endpoints on
+ * Tomcat and once against the reactive endpoints on Netty, both served by the same application
+ * and H2 database. Single products come from the warmed product cache on both stacks, so
+ * {@code getProduct} compares the request handling itself; {@code getProducts} reads a page
+ * through JDBC or R2DBC.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class ProductReadBenchmark {
+    private static final int CATALOG_SIZE = 1_000;
+
+    @State(Scope.Benchmark)
+    public static class ServerState {
+        @Param({"mvc", "reactive"})
+        public String stack;
+
+        ConfigurableApplicationContext context;
+        String baseUrl;
+
+        @Setup(Level.Trial)
+        public void startApplication() throws Exception {
+            context = new SpringApplicationBuilder(ECommerceShopApplication.class).run(
+                    "--server.port=0",
+                    "--spring.main.banner-mode=off",
+                    "--spring.datasource.url=jdbc:h2:mem:product-reads;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.driver-class-name=org.h2.Driver",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--app.products.reactive.r2dbc.url=r2dbc:h2:mem:///product-reads;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                    "--app.products.reactive.r2dbc.username=sa",
+                    "--app.products.reactive.r2dbc.password=",
+                    "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                    "--spring.jpa.hibernate.ddl-auto=create",
+                    "--spring.jpa.show-sql=false",
+                    "--app.secret-key=YmVuY2htYXJrLXNpZ25pbmcta2V5LW9mLWF0LWxlYXN0LTMyLWJ5dGVz",
+                    "--app.jwt.cookie=benchmark",
+                    "--app.jwt.expiration-ms=3600000",
+                    "--app.products.reactive.enabled=true",
+                    "--app.products.reactive.port=0",
+                    "--logging.level.root=WARN");
+
+            List<Product> products = new ArrayList<>(CATALOG_SIZE);
+            for (int i = 0; i < CATALOG_SIZE; i++) {
+                products.add(new Product(null, "Product " + i, BigDecimal.valueOf(1999, 2),
+                        "Description of product " + i, 100, null));
+            }
+            ProductService productService = context.getBean(ProductService.class);
+            for (Product product : context.getBean(ProductRepository.class).saveAll(products)) {
+                productService.getProductById(product.getId());
+            }
+
+            int port = "reactive".equals(stack)
+                    ? context.getBean(ReactiveReadServer.class).getPort()
+                    : Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+            baseUrl = "http://localhost:" + port + "/api/products";
+        }
+
+        @TearDown(Level.Trial)
+        public void stopApplication() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        String get(String url) throws Exception {
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(url)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException(url + " answered " + response.statusCode());
+            }
+            return response.body();
+        }
+    }
+
+    @Benchmark
+    public String getProduct(ServerState server, Client client) throws Exception {
+        return client.get(server.baseUrl + "/" + (1 + ThreadLocalRandom.current().nextInt(CATALOG_SIZE)));
+    }
+
+    @Benchmark
+    public String getProducts(ServerState server, Client client) throws Exception {
+        return client.get(server.baseUrl + "?page=" + ThreadLocalRandom.current().nextInt(CATALOG_SIZE / 20) + "&size=20");
+    }
+}
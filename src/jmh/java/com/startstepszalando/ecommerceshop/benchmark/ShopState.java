@@ -0,0 +1,111 @@
+package com.startstepszalando.ecommerceshop.benchmark;
+
+import com.startstepszalando.ecommerceshop.ECommerceShopApplication;
+import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import com.startstepszalando.ecommerceshop.cart.repository.CartRepository;
+import com.startstepszalando.ecommerceshop.cart.service.CartService;
+import com.startstepszalando.ecommerceshop.order.service.OrderService;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.repository.UserRepository;
+import com.startstepszalando.ecommerceshop.user.service.UserImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Boots the application against an in-memory H2 database and seeds a catalog and one
+ * customer whose cart holds {@link #cartLines} lines. JMH runs every parameter value in its
+ * own fork, so each trial starts from a fresh database.
+ */
+@State(Scope.Benchmark)
+public class ShopState {
+    private static final int CATALOG_SIZE = 1_000;
+    private static final int UNLIMITED_STOCK = 1_000_000_000;
+
+    @Param({"1", "10", "100"})
+    public int cartLines;
+
+    ConfigurableApplicationContext context;
+    CartService cartService;
+    OrderService orderService;
+    TransactionTemplate transactionTemplate;
+    JdbcTemplate jdbcTemplate;
+    Long cartId;
+    List<Long> cartProductIds;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(ECommerceShopApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--app.secret-key=YmVuY2htYXJrLXNpZ25pbmcta2V5LW9mLWF0LWxlYXN0LTMyLWJ5dGVz",
+                "--app.jwt.cookie=benchmark",
+                "--app.jwt.expiration-ms=3600000",
+                "--logging.level.root=WARN");
+
+        cartService = context.getBean(CartService.class);
+        orderService = context.getBean(OrderService.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        User customer = context.getBean(UserRepository.class)
+                .save(new User(null, "Benchmark Customer", "customer@benchmark.local", "password", Role.CUSTOMER));
+        List<Product> catalog = seedCatalog(context.getBean(ProductRepository.class));
+
+        Cart cart = new Cart();
+        cart.setUser(customer);
+        cartId = context.getBean(CartRepository.class).save(cart).getId();
+        cartProductIds = catalog.stream().limit(cartLines).map(Product::getId).toList();
+        fillCart();
+
+        // The services read the customer from the security context. JMH may run iterations on
+        // different threads, so the context is shared globally rather than per thread.
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        UserImpl principal = UserImpl.build(customer);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    void fillCart() {
+        List<Object[]> rows = cartProductIds.stream()
+                .map(productId -> new Object[]{cartId, productId, 1})
+                .toList();
+        jdbcTemplate.batchUpdate("INSERT INTO cart_item (cart_id, product_id, quantity) VALUES (?, ?, ?)", rows);
+    }
+
+    private List<Product> seedCatalog(ProductRepository productRepository) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(CATALOG_SIZE);
+        for (int i = 0; i < CATALOG_SIZE; i++) {
+            BigDecimal price = BigDecimal.valueOf(99 + random.nextInt(99_900), 2);
+            products.add(new Product(null, "Product " + i, price,
+                    "Description of product " + i, UNLIMITED_STOCK, null));
+        }
+        return productRepository.saveAll(products);
+    }
+}
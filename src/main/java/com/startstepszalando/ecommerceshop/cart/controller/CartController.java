@@ -1,7 +1,11 @@
 package com.startstepszalando.ecommerceshop.cart.controller;
 
+import com.startstepszalando.ecommerceshop.cart.dto.CartBatchRequest;
 import com.startstepszalando.ecommerceshop.cart.dto.CartResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartSummary;
 import com.startstepszalando.ecommerceshop.cart.service.CartService;
+import com.startstepszalando.ecommerceshop.exception.cart.InvalidCartOperationException;
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
 import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -9,6 +13,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -69,6 +74,34 @@ public class CartController {
         return ResponseEntity.ok().build();
     }
 
+    @Operation(summary = "Apply a batch of cart operations",
+            description = "Applies a list of ADD, REMOVE and SET_QUANTITY operations to the user's cart in order, in one transaction, and returns the resulting cart. A SET_QUANTITY of 0 removes the line. Stock is checked against the final quantity of each line; if any operation fails, none is applied. Requires user authentication.",
+            security = { @SecurityRequirement(name = "bearerAuth") },
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Operations applied successfully",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = CartResponse.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid operation or insufficient stock",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(oneOf = {InvalidCartOperationException.class, InsufficientStockException.class}))),
+                    @ApiResponse(responseCode = "403", description = "Access denied",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = AccessDeniedException.class))),
+                    @ApiResponse(responseCode = "404", description = "Product not found",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ProductNotFoundException.class))),
+                    @ApiResponse(responseCode = "500", description = "Internal server error or unexpected error",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = Exception.class)))
+            })
+    @PreAuthorize("isAuthenticated()")
+    @PostMapping("/batch")
+    public ResponseEntity<CartResponse> applyBatch(@Valid @RequestBody CartBatchRequest request)
+            throws ProductNotFoundException, InsufficientStockException {
+        CartResponse cart = cartService.applyBatch(request.getOperations());
+        return ResponseEntity.ok(cart);
+    }
+
     @Operation(summary = "Get cart details",
             description = "Retrieves the current user's cart details including products, quantities, and total cost. Requires user authentication.",
             responses = {
@@ -89,8 +122,28 @@ public class CartController {
         return ResponseEntity.ok(cartDetails);
     }
 
+    @Operation(summary = "Get cart summary",
+            description = "Returns the number of items and the subtotal of the current user's cart, as kept on the cart itself. Meant for mini-cart badges. Requires user authentication.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Cart summary retrieved successfully",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = CartSummary.class))),
+                    @ApiResponse(responseCode = "403", description = "Access denied",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = AccessDeniedException.class))),
+                    @ApiResponse(responseCode = "500", description = "Internal server error or unexpected error",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = Exception.class)))
+            })
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/summary")
+    public ResponseEntity<CartSummary> getCartSummary() {
+        CartSummary cartSummary = cartService.getCartSummary();
+        return ResponseEntity.ok(cartSummary);
+    }
+
     @Operation(summary = "Get cart total",
-            description = "Calculates the total cost of the current user's cart. Requires user authentication.",
+            description = "Returns the total cost of the current user's cart. Requires user authentication.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Cart total cost retrieved successfully",
                             content = @Content(mediaType = "application/json",
@@ -0,0 +1,19 @@
+package com.startstepszalando.ecommerceshop.cart.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartBatchRequest {
+    @NotEmpty(message = "Operations must not be empty")
+    @Size(max = 200, message = "A batch can hold at most 200 operations")
+    private List<@Valid CartOperation> operations;
+}
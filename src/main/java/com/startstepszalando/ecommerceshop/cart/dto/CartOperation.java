@@ -0,0 +1,25 @@
+package com.startstepszalando.ecommerceshop.cart.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperation {
+    // Upper bound for a single operation and for the resulting line
+    public static final int MAX_QUANTITY = 10_000;
+
+    @NotNull(message = "Operation type must not be empty")
+    private CartOperationType type;
+
+    @NotNull(message = "Product id must not be empty")
+    private Long productId;
+
+    // Required for ADD and SET_QUANTITY, ignored for REMOVE
+    @Max(value = MAX_QUANTITY, message = "Quantity must be at most 10000")
+    private Integer quantity;
+}
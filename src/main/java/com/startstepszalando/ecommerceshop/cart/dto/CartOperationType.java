@@ -0,0 +1,7 @@
+package com.startstepszalando.ecommerceshop.cart.dto;
+
+public enum CartOperationType {
+    ADD,
+    REMOVE,
+    SET_QUANTITY
+}
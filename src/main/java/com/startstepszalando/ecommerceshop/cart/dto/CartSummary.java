@@ -0,0 +1,16 @@
+package com.startstepszalando.ecommerceshop.cart.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSummary {
+    private Long cartId;
+    private int itemCount;
+    private BigDecimal subtotal;
+}
@@ -0,0 +1,17 @@
+package com.startstepszalando.ecommerceshop.cart.dto;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+public class CartTotal {
+    private final BigDecimal total;
+    private final long lineCount;
+
+    public CartTotal(BigDecimal total, Long lineCount) {
+        // SUM over an empty cart yields NULL
+        this.total = total != null ? total : BigDecimal.ZERO;
+        this.lineCount = lineCount != null ? lineCount : 0;
+    }
+}
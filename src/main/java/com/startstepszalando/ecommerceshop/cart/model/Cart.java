@@ -5,7 +5,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
+import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
@@ -27,6 +29,16 @@ public class Cart {
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, fetch = FetchType.LAZY, orphanRemoval = true)
     private Set<CartItem> items = new HashSet<>();
 
+    // Running totals over the cart's items, maintained by CartRepository.adjustTotals. Not
+    // updatable through the entity, so saving a stale Cart can never overwrite them.
+    @ColumnDefault("0")
+    @Column(name = "item_count", nullable = false, updatable = false)
+    private int itemCount;
+
+    @ColumnDefault("0")
+    @Column(name = "subtotal", nullable = false, updatable = false, precision = 12, scale = 2)
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
     @Override
     public String toString() {
         return "Cart{" +
@@ -0,0 +1,13 @@
+package com.startstepszalando.ecommerceshop.cart.repository;
+
+import com.startstepszalando.ecommerceshop.cart.model.CartItem;
+
+import java.util.Collection;
+
+public interface CartItemBatchRepository {
+    /**
+     * Persists new cart lines without the existence check {@code save} makes for entities with
+     * an assigned key, so the inserts go out as one JDBC batch on flush.
+     */
+    void persistAll(Collection<CartItem> items);
+}
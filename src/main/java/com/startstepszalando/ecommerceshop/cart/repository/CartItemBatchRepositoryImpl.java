@@ -0,0 +1,17 @@
+package com.startstepszalando.ecommerceshop.cart.repository;
+
+import com.startstepszalando.ecommerceshop.cart.model.CartItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.Collection;
+
+public class CartItemBatchRepositoryImpl implements CartItemBatchRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void persistAll(Collection<CartItem> items) {
+        items.forEach(entityManager::persist);
+    }
+}
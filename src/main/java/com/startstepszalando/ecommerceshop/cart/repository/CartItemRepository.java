@@ -1,15 +1,17 @@
 package com.startstepszalando.ecommerceshop.cart.repository;
 
 import com.startstepszalando.ecommerceshop.cart.dto.CartItemResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartTotal;
 import com.startstepszalando.ecommerceshop.cart.model.CartItem;
 import com.startstepszalando.ecommerceshop.cart.model.CartItemId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
-public interface CartItemRepository extends JpaRepository<CartItem, CartItemId> {
+public interface CartItemRepository extends JpaRepository<CartItem, CartItemId>, CartItemBatchRepository {
     @Query("SELECT new com.startstepszalando.ecommerceshop.cart.dto.CartItemResponse(" +
             "p.id, p.name, ci.quantity, p.price) " +
             "FROM Cart c " +
@@ -18,5 +20,31 @@ public interface CartItemRepository extends JpaRepository<CartItem, CartItemId>
             "WHERE c.user.id = :userId")
     List<CartItemResponse> findCartDetailsByUserId(@Param("userId") Long userId);
 
+    @Query("SELECT new com.startstepszalando.ecommerceshop.cart.dto.CartTotal(SUM(p.price * ci.quantity), COUNT(ci)) " +
+            "FROM CartItem ci " +
+            "JOIN ci.product p " +
+            "WHERE ci.cart.user.id = :userId")
+    CartTotal findCartTotalByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.startstepszalando.ecommerceshop.cart.dto.CartTotal(SUM(p.price * ci.quantity), COUNT(ci)) " +
+            "FROM CartItem ci " +
+            "JOIN ci.product p " +
+            "WHERE ci.cart.id = :cartId")
+    CartTotal findCartTotalByCartId(@Param("cartId") Long cartId);
+
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.product WHERE ci.cart.id = :cartId")
+    List<CartItem> findWithProductByCartId(@Param("cartId") Long cartId);
+
+    /**
+     * Adds {@code quantity} to the user's line for the product, creating the line if needed,
+     * in one statement keyed on the (cart_id, product_id) primary key. Returns 0 when the
+     * user has no cart yet.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO cart_item (cart_id, product_id, quantity) " +
+            "SELECT c.id, :productId, :quantity FROM carts c WHERE c.user_id = :userId " +
+            "ON DUPLICATE KEY UPDATE quantity = cart_item.quantity + :quantity", nativeQuery = true)
+    int upsertQuantity(@Param("userId") Long userId, @Param("productId") Long productId, @Param("quantity") int quantity);
+
     void deleteByCartId(Long cartId);
 }
@@ -1,11 +1,17 @@
 package com.startstepszalando.ecommerceshop.cart.repository;
 
+import com.startstepszalando.ecommerceshop.cart.dto.CartSummary;
 import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +21,44 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.items WHERE c.user.id = :userId")
     Optional<Cart> findCartWithItemsByUserId(@Param("userId") Long userId);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cart c WHERE c.user.id = :userId")
+    Optional<Cart> findForUpdateByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.startstepszalando.ecommerceshop.cart.dto.CartSummary(c.id, c.itemCount, c.subtotal) " +
+            "FROM Cart c WHERE c.user.id = :userId")
+    Optional<CartSummary> findSummaryByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.itemCount = c.itemCount + :quantity, c.subtotal = c.subtotal + :amount " +
+            "WHERE c.id = :cartId")
+    int adjustTotals(@Param("cartId") Long cartId, @Param("quantity") int quantity, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.itemCount = c.itemCount + :quantity, c.subtotal = c.subtotal + :amount " +
+            "WHERE c.user.id = :userId")
+    int adjustTotalsByUserId(@Param("userId") Long userId, @Param("quantity") int quantity, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.itemCount = 0, c.subtotal = 0 WHERE c.id = :cartId")
+    int resetTotals(@Param("cartId") Long cartId);
+
+    @Modifying
+    @Query("UPDATE Cart c SET c.itemCount = :itemCount, c.subtotal = :subtotal WHERE c.id = :cartId")
+    int setTotals(@Param("cartId") Long cartId, @Param("itemCount") int itemCount, @Param("subtotal") BigDecimal subtotal);
+
+    /**
+     * Recomputes the running totals of the carts with ids in ({@code fromId}, {@code toId}]
+     * from their items at current product prices.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Cart c SET " +
+            "c.itemCount = COALESCE((SELECT SUM(ci.quantity) FROM CartItem ci WHERE ci.cart = c), 0), " +
+            "c.subtotal = COALESCE((SELECT SUM(ci.quantity * p.price) FROM CartItem ci JOIN ci.product p WHERE ci.cart = c), 0) " +
+            "WHERE c.id > :fromId AND c.id <= :toId")
+    int reconcileTotals(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM Cart c")
+    Long findMaxId();
 }
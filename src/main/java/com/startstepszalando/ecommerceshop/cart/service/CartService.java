@@ -1,116 +1,110 @@
 package com.startstepszalando.ecommerceshop.cart.service;
 
-import com.startstepszalando.ecommerceshop.cart.dto.CartItemResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartOperation;
 import com.startstepszalando.ecommerceshop.cart.dto.CartResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartSummary;
+import com.startstepszalando.ecommerceshop.cart.dto.CartTotal;
 import com.startstepszalando.ecommerceshop.cart.model.Cart;
-import com.startstepszalando.ecommerceshop.cart.model.CartItem;
-import com.startstepszalando.ecommerceshop.cart.model.CartItemId;
-import com.startstepszalando.ecommerceshop.cart.repository.CartItemRepository;
-import com.startstepszalando.ecommerceshop.cart.repository.CartRepository;
+import com.startstepszalando.ecommerceshop.cart.store.CartStore;
+import com.startstepszalando.ecommerceshop.exception.cart.InvalidCartOperationException;
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
 import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
 import com.startstepszalando.ecommerceshop.product.model.Product;
 import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
 import com.startstepszalando.ecommerceshop.user.service.UserImpl;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Optional;
 
+/**
+ * Validates cart changes for the current user and hands them to the configured {@link CartStore}.
+ */
 @Service
 public class CartService {
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
     private final ProductRepository productRepository;
-    private final CartManagementService cartManagementService;
+    private final ProductCache productCache;
 
-    public CartService(CartRepository cartRepository,
-                       CartItemRepository cartItemRepository,
+    public CartService(CartStore cartStore,
                        ProductRepository productRepository,
-                       CartManagementService cartManagementService) {
-        this.cartRepository = cartRepository;
-        this.cartItemRepository = cartItemRepository;
+                       ProductCache productCache) {
+        this.cartStore = cartStore;
         this.productRepository = productRepository;
-        this.cartManagementService = cartManagementService;
+        this.productCache = productCache;
     }
 
     public Cart getMyCart() {
-        Long userId = getCurrentUserId();
-
-        return cartRepository.findByUserId(userId)
-                .orElseGet(() -> cartManagementService.createCartForUser(userId));
+        return cartStore.getCart(getCurrentUserId());
     }
 
     public CartResponse getMyCartDetails() {
-        Long userId = getCurrentUserId();
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> cartManagementService.createCartForUser(userId));
-
-        List<CartItemResponse> cartItems = cartItemRepository.findCartDetailsByUserId(userId)
-                .stream()
-                .map(item -> new CartItemResponse(item.getProductId(), item.getProductName(), item.getQuantity(), item.getPrice()))
-                .toList();
-
-        String message = cartItems.isEmpty() ? "The user's cart is empty" : "";
-
-        return new CartResponse(cart.getId(), cartItems, message);
+        return cartStore.getCartDetails(getCurrentUserId());
     }
 
-    @Transactional
+    /**
+     * The product comes from the product cache; checkout still reserves stock with a guarded
+     * update, so a stale stock value here cannot oversell.
+     */
     public void addProductToCart(Long productId, Integer quantity) throws ProductNotFoundException {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be a positive number");
+        }
         Long userId = getCurrentUserId();
 
-        Product product = productRepository.findById(productId)
+        Product product = productCache.get(productId, productRepository::findById)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found"));
 
         if (product.getStock() < quantity) {
             throw new IllegalArgumentException("Insufficient stock for product");
         }
 
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> cartManagementService.createCartForUser(userId));
-
-        Optional<CartItem> existingCartItem = cart.getItems().stream()
-                .filter(item -> item.getProduct().getId().equals(productId))
-                .findFirst();
-
-        CartItem cartItem;
-        if (existingCartItem.isPresent()) {
-            cartItem = existingCartItem.get();
-            cartItem.setQuantity(cartItem.getQuantity() + quantity);
-        } else {
-            cartItem = new CartItem();
-            cartItem.setCart(cart);
-            cartItem.setProduct(product);
-            cartItem.setQuantity(quantity);
-            cart.getItems().add(cartItem);
-        }
-
-        cartItemRepository.save(cartItem);
-        cartRepository.save(cart);
+        cartStore.addItem(userId, product, quantity);
     }
 
-    @Transactional
     public void removeProductFromCart(Long productId) {
-        Cart cart = getMyCart();
-        CartItemId cartItemId = new CartItemId(cart.getId(), productId);
-        cartItemRepository.deleteById(cartItemId);
+        cartStore.removeItem(getCurrentUserId(), productId);
     }
 
-    @Transactional
-    public Cart saveCart(Cart cart) {
-        return cartRepository.save(cart);
+    /**
+     * Applies a list of operations in order, as one unit: nothing is written if any operation
+     * fails. Stock is checked against the final quantity of each line, with one query for all
+     * the products the batch adds or sets.
+     */
+    public CartResponse applyBatch(List<CartOperation> operations)
+            throws ProductNotFoundException, InsufficientStockException {
+        operations.forEach(CartService::validate);
+        return cartStore.applyBatch(getCurrentUserId(), operations);
     }
 
-    @Transactional
     public void clearCart(Cart cart) {
-        cartItemRepository.deleteByCartId(cart.getId());
-
-        cart.getItems().clear();
+        cartStore.clear(cart);
+    }
 
-        saveCart(cart);
+    private static void validate(CartOperation operation) {
+        Integer quantity = operation.getQuantity();
+        if (quantity != null && quantity > CartOperation.MAX_QUANTITY) {
+            throw new InvalidCartOperationException(operation.getType() + " of product " + operation.getProductId() +
+                    " exceeds the maximum quantity of " + CartOperation.MAX_QUANTITY);
+        }
+        switch (operation.getType()) {
+            case ADD -> {
+                if (quantity == null || quantity <= 0) {
+                    throw new InvalidCartOperationException("ADD of product " + operation.getProductId() +
+                            " needs a positive quantity");
+                }
+            }
+            case SET_QUANTITY -> {
+                if (quantity == null || quantity < 0) {
+                    throw new InvalidCartOperationException("SET_QUANTITY of product " + operation.getProductId() +
+                            " needs a quantity of zero or more");
+                }
+            }
+            case REMOVE -> {
+            }
+        }
     }
 
     private Long getCurrentUserId() {
@@ -122,13 +116,28 @@ public class CartService {
         }
     }
 
+    /**
+     * Returns the item count and subtotal of the current user's cart. A user without a cart gets
+     * an empty summary, so no cart is created just to show a badge.
+     */
+    public CartSummary getCartSummary() {
+        return cartStore.getSummary(getCurrentUserId())
+                .orElseGet(() -> new CartSummary(null, 0, BigDecimal.ZERO));
+    }
+
     public BigDecimal calculateTotalCost() {
-        CartResponse cartResponse = getMyCartDetails();
+        return getCartSummary().getSubtotal();
+    }
 
-        List<CartItemResponse> cartItems = cartResponse.getItems();
+    /**
+     * Prices the cart at current product prices. Checkout uses this rather than the summary,
+     * whose running subtotal can lag behind price changes.
+     */
+    public BigDecimal calculateTotalCost(Cart cart) {
+        return getCartTotal(cart).getTotal();
+    }
 
-        return cartItems.stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    public CartTotal getCartTotal(Cart cart) {
+        return cartStore.getCartTotal(cart);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,47 @@
+package com.startstepszalando.ecommerceshop.cart.service;
+
+import com.startstepszalando.ecommerceshop.cart.repository.CartRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically recomputes every cart's running totals from its items. This repairs drift from
+ * product price changes and from writes that bypass {@link CartService}. Carts are handled in
+ * id ranges, each in its own short transaction, so only a few rows are locked at a time.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "jpa", matchIfMissing = true)
+public class CartTotalsReconciler {
+    private final CartRepository cartRepository;
+    private final int chunkSize;
+
+    public CartTotalsReconciler(CartRepository cartRepository,
+                                @Value("${app.cart.totals.reconcile-chunk-size:500}") int chunkSize) {
+        this.cartRepository = cartRepository;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.totals.reconcile-interval:PT15M}",
+            initialDelayString = "${app.cart.totals.reconcile-initial-delay:PT1M}")
+    public void reconcile() {
+        long maxId = cartRepository.findMaxId();
+        long reconciled = 0;
+        int failedChunks = 0;
+        for (long fromId = 0; fromId < maxId; fromId += chunkSize) {
+            try {
+                reconciled += cartRepository.reconcileTotals(fromId, Math.min(fromId + chunkSize, maxId));
+            } catch (DataAccessException e) {
+                // Typically a lock conflict with a cart being edited; the next run covers it
+                failedChunks++;
+                log.warn("Could not reconcile carts with ids in ({}, {}]: {}",
+                        fromId, fromId + chunkSize, e.getMostSpecificCause().getMessage());
+            }
+        }
+        log.info("Reconciled totals of {} carts ({} chunks skipped)", reconciled, failedChunks);
+    }
+}
@@ -0,0 +1,97 @@
+package com.startstepszalando.ecommerceshop.cart.store;
+
+import com.startstepszalando.ecommerceshop.cart.dto.CartItemResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartOperation;
+import com.startstepszalando.ecommerceshop.cart.dto.CartResponse;
+import com.startstepszalando.ecommerceshop.exception.cart.InvalidCartOperationException;
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * The store-independent part of a batch: folding the operations into the line quantities,
+ * checking stock against the result and building the response.
+ */
+final class CartBatch {
+    private CartBatch() {
+    }
+
+    /**
+     * Applies the operations to {@code quantities} in place and returns the products whose final
+     * quantity has to be stock-checked.
+     */
+    static Set<Long> apply(Map<Long, Integer> quantities, List<CartOperation> operations) {
+        Set<Long> stocked = new HashSet<>();
+        for (CartOperation operation : operations) {
+            Long productId = operation.getProductId();
+            switch (operation.getType()) {
+                case ADD -> {
+                    quantities.merge(productId, operation.getQuantity(), (current, added) -> {
+                        if (current > CartOperation.MAX_QUANTITY - added) {
+                            throw new InvalidCartOperationException("ADD of product " + productId +
+                                    " would bring its quantity above " + CartOperation.MAX_QUANTITY);
+                        }
+                        return current + added;
+                    });
+                    stocked.add(productId);
+                }
+                case REMOVE -> quantities.remove(productId);
+                case SET_QUANTITY -> {
+                    if (operation.getQuantity() == 0) {
+                        quantities.remove(productId);
+                    } else {
+                        quantities.put(productId, operation.getQuantity());
+                        stocked.add(productId);
+                    }
+                }
+            }
+        }
+        return stocked;
+    }
+
+    static void checkStock(Set<Long> stocked, Map<Long, Integer> quantities, Map<Long, Product> products)
+            throws ProductNotFoundException, InsufficientStockException {
+        for (Long productId : stocked) {
+            Product product = products.get(productId);
+            Integer quantity = quantities.get(productId);
+            if (product == null) {
+                throw new ProductNotFoundException("Product not found with id: " + productId);
+            }
+            if (quantity != null && product.getStock() < quantity) {
+                throw new InsufficientStockException("Insufficient stock for product: " + product.getName(), product);
+            }
+        }
+    }
+
+    /**
+     * Lists the lines whose product still exists, in the order of {@code quantities}.
+     */
+    static List<CartItemResponse> items(Map<Long, Integer> quantities, Map<Long, Product> products) {
+        List<CartItemResponse> items = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            if (product != null) {
+                items.add(new CartItemResponse(productId, product.getName(), quantity, product.getPrice()));
+            }
+        });
+        return items;
+    }
+
+    static BigDecimal subtotal(List<CartItemResponse> items) {
+        return items.stream()
+                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    static int itemCount(List<CartItemResponse> items) {
+        return items.stream().mapToInt(CartItemResponse::getQuantity).sum();
+    }
+
+    static CartResponse response(Long cartId, List<CartItemResponse> items) {
+        String message = items.isEmpty() ? "The user's cart is empty" : "";
+        return new CartResponse(cartId, items, message);
+    }
+}
@@ -0,0 +1,32 @@
+package com.startstepszalando.ecommerceshop.cart.store;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The subset of Redis hash commands the key-value cart store needs. Every write refreshes the
+ * key's time to live, so a cart expires once it has not been touched for {@code ttl}.
+ */
+public interface CartHashStore {
+    /**
+     * {@code HGETALL}: the fields of the hash, empty when the key does not exist or has expired.
+     */
+    Map<String, String> entries(String key);
+
+    /**
+     * {@code HINCRBY} followed by {@code EXPIRE}.
+     */
+    void increment(String key, String field, long delta, Duration ttl);
+
+    /**
+     * {@code HDEL} followed by {@code EXPIRE}.
+     */
+    void remove(String key, String field, Duration ttl);
+
+    /**
+     * Atomically replaces the whole hash and sets its time to live. An empty map deletes the key.
+     */
+    void replace(String key, Map<String, String> fields, Duration ttl);
+
+    void delete(String key);
+}
@@ -0,0 +1,57 @@
+package com.startstepszalando.ecommerceshop.cart.store;
+
+import com.startstepszalando.ecommerceshop.cart.dto.CartOperation;
+import com.startstepszalando.ecommerceshop.cart.dto.CartResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartSummary;
+import com.startstepszalando.ecommerceshop.cart.dto.CartTotal;
+import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where carts are kept. {@code CartService} validates input and resolves the current user and
+ * products; a store only holds the lines. The implementation is chosen with {@code app.cart.store}:
+ * {@code jpa} keeps carts in MySQL, {@code redis} and {@code memory} keep them in a key-value
+ * store, and only the order written at checkout reaches MySQL.
+ */
+public interface CartStore {
+    /**
+     * Returns the user's cart with its items and their products, as checkout needs it.
+     */
+    Cart getCart(Long userId);
+
+    CartResponse getCartDetails(Long userId);
+
+    /**
+     * Returns the item count and subtotal, or nothing when the user has no cart.
+     */
+    Optional<CartSummary> getSummary(Long userId);
+
+    /**
+     * Adds {@code quantity} of the product to the user's cart, merging with an existing line.
+     */
+    void addItem(Long userId, Product product, int quantity);
+
+    void removeItem(Long userId, Long productId);
+
+    /**
+     * Applies validated operations in order, with one stock query for the products they add or
+     * set. Nothing is written when any operation fails.
+     */
+    CartResponse applyBatch(Long userId, List<CartOperation> operations)
+            throws ProductNotFoundException, InsufficientStockException;
+
+    /**
+     * Prices the cart as returned by {@link #getCart} at current product prices.
+     */
+    CartTotal getCartTotal(Cart cart);
+
+    /**
+     * Empties the cart after checkout. Takes effect when the surrounding transaction commits.
+     */
+    void clear(Cart cart);
+}
@@ -0,0 +1,104 @@
+package com.startstepszalando.ecommerceshop.cart.store;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Embedded stand-in for a Redis server, for tests and single-instance runs. Carts are lost on
+ * restart and are not shared between instances. Expired hashes are dropped when they are next
+ * read or written, and by a sweep every {@value #SWEEP_INTERVAL} writes.
+ */
+public class InMemoryCartHashStore implements CartHashStore {
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final Map<String, Hash> hashes = new ConcurrentHashMap<>();
+    private final AtomicInteger writesSinceSweep = new AtomicInteger();
+    private final Clock clock;
+
+    public InMemoryCartHashStore(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public Map<String, String> entries(String key) {
+        Hash hash = hashes.get(key);
+        if (hash == null) {
+            return Collections.emptyMap();
+        }
+        if (hash.isExpired(clock.millis())) {
+            hashes.remove(key, hash);
+            return Collections.emptyMap();
+        }
+        synchronized (hash) {
+            return new LinkedHashMap<>(hash.fields);
+        }
+    }
+
+    @Override
+    public void increment(String key, String field, long delta, Duration ttl) {
+        write(key, ttl, fields -> fields.merge(field, Long.toString(delta),
+                (current, ignored) -> Long.toString(Long.parseLong(current) + delta)));
+    }
+
+    @Override
+    public void remove(String key, String field, Duration ttl) {
+        write(key, ttl, fields -> fields.remove(field));
+    }
+
+    @Override
+    public void replace(String key, Map<String, String> fields, Duration ttl) {
+        if (fields.isEmpty()) {
+            delete(key);
+            return;
+        }
+        Hash hash = new Hash(clock.millis() + ttl.toMillis());
+        hash.fields.putAll(fields);
+        hashes.put(key, hash);
+        sweepPeriodically();
+    }
+
+    @Override
+    public void delete(String key) {
+        hashes.remove(key);
+    }
+
+    private void write(String key, Duration ttl, Consumer<Map<String, String>> change) {
+        long now = clock.millis();
+        hashes.compute(key, (ignored, hash) -> {
+            Hash target = hash == null || hash.isExpired(now) ? new Hash(0) : hash;
+            synchronized (target) {
+                change.accept(target.fields);
+                target.expiresAt = now + ttl.toMillis();
+            }
+            return target.fields.isEmpty() ? null : target;
+        });
+        sweepPeriodically();
+    }
+
+    private void sweepPeriodically() {
+        if (writesSinceSweep.incrementAndGet() >= SWEEP_INTERVAL) {
+            writesSinceSweep.set(0);
+            long now = clock.millis();
+            hashes.values().removeIf(hash -> hash.isExpired(now));
+        }
+    }
+
+    private static final class Hash {
+        private final Map<String, String> fields = new LinkedHashMap<>();
+        private volatile long expiresAt;
+
+        private Hash(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expiresAt <= now;
+        }
+    }
+}
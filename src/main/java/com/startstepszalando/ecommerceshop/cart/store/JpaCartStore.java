@@ -0,0 +1,167 @@
+package com.startstepszalando.ecommerceshop.cart.store;
+
+import com.startstepszalando.ecommerceshop.cart.dto.CartItemResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartOperation;
+import com.startstepszalando.ecommerceshop.cart.dto.CartResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartSummary;
+import com.startstepszalando.ecommerceshop.cart.dto.CartTotal;
+import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import com.startstepszalando.ecommerceshop.cart.model.CartItem;
+import com.startstepszalando.ecommerceshop.cart.model.CartItemId;
+import com.startstepszalando.ecommerceshop.cart.repository.CartItemRepository;
+import com.startstepszalando.ecommerceshop.cart.repository.CartRepository;
+import com.startstepszalando.ecommerceshop.cart.service.CartManagementService;
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Keeps carts in the {@code carts} and {@code cart_item} tables, with running totals on the
+ * cart row. This is the default store.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.store", havingValue = "jpa", matchIfMissing = true)
+public class JpaCartStore implements CartStore {
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final ProductRepository productRepository;
+    private final CartManagementService cartManagementService;
+
+    public JpaCartStore(CartRepository cartRepository,
+                        CartItemRepository cartItemRepository,
+                        ProductRepository productRepository,
+                        CartManagementService cartManagementService) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.productRepository = productRepository;
+        this.cartManagementService = cartManagementService;
+    }
+
+    @Override
+    public Cart getCart(Long userId) {
+        return cartRepository.findByUserId(userId)
+                .orElseGet(() -> cartManagementService.createCartForUser(userId));
+    }
+
+    @Override
+    public CartResponse getCartDetails(Long userId) {
+        Cart cart = getCart(userId);
+
+        List<CartItemResponse> cartItems = cartItemRepository.findCartDetailsByUserId(userId);
+
+        return CartBatch.response(cart.getId(), cartItems);
+    }
+
+    @Override
+    public Optional<CartSummary> getSummary(Long userId) {
+        return cartRepository.findSummaryByUserId(userId);
+    }
+
+    /**
+     * Adds to the cart without loading it: the running totals are bumped first, which also locks
+     * the cart row, then the line is upserted on its primary key.
+     */
+    @Override
+    @Transactional
+    public void addItem(Long userId, Product product, int quantity) {
+        BigDecimal amount = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        if (cartRepository.adjustTotalsByUserId(userId, quantity, amount) == 0) {
+            cartManagementService.createCartForUser(userId);
+            cartRepository.adjustTotalsByUserId(userId, quantity, amount);
+        }
+        cartItemRepository.upsertQuantity(userId, product.getId(), quantity);
+    }
+
+    @Override
+    @Transactional
+    public void removeItem(Long userId, Long productId) {
+        Cart cart = getCart(userId);
+        CartItemId cartItemId = new CartItemId(cart.getId(), productId);
+        cartItemRepository.findById(cartItemId).ifPresent(cartItem -> {
+            cartItemRepository.delete(cartItem);
+            int quantity = cartItem.getQuantity();
+            cartRepository.adjustTotals(cart.getId(), -quantity,
+                    cartItem.getProduct().getPrice().multiply(BigDecimal.valueOf(-quantity)));
+        });
+    }
+
+    /**
+     * Locks the cart row, reads its lines with their products and stock-checks the other products
+     * the batch adds or sets in one query. Changes go out as JDBC batches and the running totals
+     * are set from the result.
+     */
+    @Override
+    @Transactional
+    public CartResponse applyBatch(Long userId, List<CartOperation> operations)
+            throws ProductNotFoundException, InsufficientStockException {
+        Cart cart = cartRepository.findForUpdateByUserId(userId)
+                .orElseGet(() -> cartManagementService.createCartForUser(userId));
+
+        Map<Long, CartItem> lines = new LinkedHashMap<>();
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        Map<Long, Product> products = new HashMap<>();
+        for (CartItem item : cartItemRepository.findWithProductByCartId(cart.getId())) {
+            Long productId = item.getProduct().getId();
+            lines.put(productId, item);
+            quantities.put(productId, item.getQuantity());
+            products.put(productId, item.getProduct());
+        }
+
+        Set<Long> stocked = CartBatch.apply(quantities, operations);
+        List<Long> missing = stocked.stream().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            productRepository.findAllById(missing).forEach(product -> products.put(product.getId(), product));
+        }
+        CartBatch.checkStock(stocked, quantities, products);
+
+        List<CartItem> removed = new ArrayList<>();
+        lines.forEach((productId, item) -> {
+            Integer quantity = quantities.get(productId);
+            if (quantity == null) {
+                removed.add(item);
+            } else if (!quantity.equals(item.getQuantity())) {
+                item.setQuantity(quantity);
+            }
+        });
+        List<CartItem> added = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            if (!lines.containsKey(productId)) {
+                added.add(new CartItem(cart, products.get(productId), quantity));
+            }
+        });
+        cartItemRepository.deleteAll(removed);
+        cartItemRepository.persistAll(added);
+
+        List<CartItemResponse> items = CartBatch.items(quantities, products);
+        cartRepository.setTotals(cart.getId(), CartBatch.itemCount(items), CartBatch.subtotal(items));
+
+        return CartBatch.response(cart.getId(), items);
+    }
+
+    /**
+     * Sums the cart's items at current prices in the database. Checkout uses this rather than
+     * the running subtotal, which can lag behind price changes until it is reconciled.
+     */
+    @Override
+    public CartTotal getCartTotal(Cart cart) {
+        return cartItemRepository.findCartTotalByCartId(cart.getId());
+    }
+
+    @Override
+    @Transactional
+    public void clear(Cart cart) {
+        cartItemRepository.deleteByCartId(cart.getId());
+
+        cart.getItems().clear();
+
+        cartRepository.save(cart);
+        cartRepository.resetTotals(cart.getId());
+    }
+}
@@ -0,0 +1,179 @@
+package com.startstepszalando.ecommerceshop.cart.store;
+
+import com.startstepszalando.ecommerceshop.cart.dto.CartItemResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartOperation;
+import com.startstepszalando.ecommerceshop.cart.dto.CartResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartSummary;
+import com.startstepszalando.ecommerceshop.cart.dto.CartTotal;
+import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import com.startstepszalando.ecommerceshop.cart.model.CartItem;
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
+import com.startstepszalando.ecommerceshop.exception.user.UserNotFoundException;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.repository.UserRepository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Keeps each cart as one hash, {@code cart:<userId>}, mapping product ids to quantities. Nothing
+ * is written to MySQL until checkout, which builds a transient {@link Cart} from the hash and
+ * writes the order. Every change refreshes the hash's time to live, so abandoned carts expire on
+ * their own.
+ * <p>
+ * Single-item adds and removes are atomic on the server. A batch reads the hash and replaces it,
+ * so a concurrent add to the same cart can be overwritten by the batch.
+ */
+public class KeyValueCartStore implements CartStore {
+    private static final String KEY_PREFIX = "cart:";
+
+    private final CartHashStore hashes;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final ProductCache productCache;
+    private final Duration ttl;
+
+    public KeyValueCartStore(CartHashStore hashes,
+                             ProductRepository productRepository,
+                             UserRepository userRepository,
+                             ProductCache productCache,
+                             Duration ttl) {
+        this.hashes = hashes;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.productCache = productCache;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Builds a cart that is not persisted: it has no id, and lines whose product has been
+     * deleted are left out.
+     */
+    @Override
+    public Cart getCart(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException("User not found with id: " + userId));
+        Map<Long, Integer> quantities = read(userId);
+
+        Cart cart = new Cart();
+        cart.setUser(user);
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            cart.getItems().add(new CartItem(cart, product, quantities.get(product.getId())));
+        }
+        return cart;
+    }
+
+    @Override
+    public CartResponse getCartDetails(Long userId) {
+        Map<Long, Integer> quantities = read(userId);
+        return CartBatch.response(null, CartBatch.items(quantities, findProducts(quantities.keySet())));
+    }
+
+    /**
+     * Prices the lines through the product cache, so a summary usually costs no database query.
+     */
+    @Override
+    public Optional<CartSummary> getSummary(Long userId) {
+        Map<Long, Integer> quantities = read(userId);
+        if (quantities.isEmpty()) {
+            return Optional.empty();
+        }
+
+        int itemCount = 0;
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            Optional<Product> product = productCache.get(line.getKey(), productRepository::findById);
+            if (product.isPresent()) {
+                itemCount += line.getValue();
+                subtotal = subtotal.add(product.get().getPrice().multiply(BigDecimal.valueOf(line.getValue())));
+            }
+        }
+        return Optional.of(new CartSummary(null, itemCount, subtotal));
+    }
+
+    @Override
+    public void addItem(Long userId, Product product, int quantity) {
+        hashes.increment(key(userId), product.getId().toString(), quantity, ttl);
+    }
+
+    @Override
+    public void removeItem(Long userId, Long productId) {
+        hashes.remove(key(userId), productId.toString(), ttl);
+    }
+
+    /**
+     * Reads the hash, applies the operations and writes the result back in one {@code MULTI}.
+     * The existing lines and every product the batch adds or sets are loaded by one query.
+     */
+    @Override
+    public CartResponse applyBatch(Long userId, List<CartOperation> operations)
+            throws ProductNotFoundException, InsufficientStockException {
+        Map<Long, Integer> quantities = read(userId);
+        Set<Long> productIds = new HashSet<>(quantities.keySet());
+
+        Set<Long> stocked = CartBatch.apply(quantities, operations);
+        productIds.addAll(stocked);
+        Map<Long, Product> products = findProducts(productIds);
+        CartBatch.checkStock(stocked, quantities, products);
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> fields.put(productId.toString(), quantity.toString()));
+        hashes.replace(key(userId), fields, ttl);
+
+        return CartBatch.response(null, CartBatch.items(quantities, products));
+    }
+
+    @Override
+    public CartTotal getCartTotal(Cart cart) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (CartItem item : cart.getItems()) {
+            total = total.add(item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        }
+        return new CartTotal(total, (long) cart.getItems().size());
+    }
+
+    /**
+     * Deletes the hash once the order is committed, so a failed checkout leaves the cart intact.
+     */
+    @Override
+    public void clear(Cart cart) {
+        String key = key(cart.getUser().getId());
+        cart.getItems().clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    hashes.delete(key);
+                }
+            });
+        } else {
+            hashes.delete(key);
+        }
+    }
+
+    private Map<Long, Integer> read(Long userId) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        hashes.entries(key(userId)).forEach((productId, quantity) ->
+                quantities.put(Long.valueOf(productId), Integer.valueOf(quantity)));
+        return quantities;
+    }
+
+    private Map<Long, Product> findProducts(Collection<Long> productIds) {
+        Map<Long, Product> products = new HashMap<>();
+        if (!productIds.isEmpty()) {
+            productRepository.findAllById(productIds).forEach(product -> products.put(product.getId(), product));
+        }
+        return products;
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
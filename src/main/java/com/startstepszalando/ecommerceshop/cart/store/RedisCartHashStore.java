@@ -0,0 +1,75 @@
+package com.startstepszalando.ecommerceshop.cart.store;
+
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Runs the hash commands against any server speaking the Redis protocol. Writes are wrapped in
+ * {@code MULTI}/{@code EXEC}, so a hash is never left without its expiry.
+ */
+public class RedisCartHashStore implements CartHashStore {
+    private final StringRedisTemplate redisTemplate;
+
+    public RedisCartHashStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Map<String, String> entries(String key) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        redisTemplate.<String, String>opsForHash().entries(key).forEach(entries::put);
+        return entries;
+    }
+
+    @Override
+    public void increment(String key, String field, long delta, Duration ttl) {
+        inTransaction(operations -> {
+            operations.opsForHash().increment(key, field, delta);
+            operations.expire(key, ttl);
+        });
+    }
+
+    @Override
+    public void remove(String key, String field, Duration ttl) {
+        inTransaction(operations -> {
+            operations.opsForHash().delete(key, field);
+            operations.expire(key, ttl);
+        });
+    }
+
+    @Override
+    public void replace(String key, Map<String, String> fields, Duration ttl) {
+        inTransaction(operations -> {
+            operations.delete(key);
+            if (!fields.isEmpty()) {
+                operations.opsForHash().putAll(key, fields);
+                operations.expire(key, ttl);
+            }
+        });
+    }
+
+    @Override
+    public void delete(String key) {
+        redisTemplate.delete(key);
+    }
+
+    private void inTransaction(Consumer<RedisOperations<String, String>> commands) {
+        redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> stringOperations = (RedisOperations<String, String>) operations;
+                stringOperations.multi();
+                commands.accept(stringOperations);
+                return stringOperations.exec();
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.startstepszalando.ecommerceshop.config;
+
+import com.startstepszalando.ecommerceshop.cart.store.CartStore;
+import com.startstepszalando.ecommerceshop.cart.store.InMemoryCartHashStore;
+import com.startstepszalando.ecommerceshop.cart.store.KeyValueCartStore;
+import com.startstepszalando.ecommerceshop.cart.store.RedisCartHashStore;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import com.startstepszalando.ecommerceshop.user.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Key-value cart stores, selected with {@code app.cart.store}. The default, {@code jpa}, is
+ * {@link com.startstepszalando.ecommerceshop.cart.store.JpaCartStore} and needs nothing here.
+ */
+@Configuration
+public class CartStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cart.store", havingValue = "redis")
+    public CartStore redisCartStore(StringRedisTemplate redisTemplate,
+                                    ProductRepository productRepository,
+                                    UserRepository userRepository,
+                                    ProductCache productCache,
+                                    @Value("${app.cart.ttl:P7D}") Duration ttl) {
+        return new KeyValueCartStore(new RedisCartHashStore(redisTemplate),
+                productRepository, userRepository, productCache, ttl);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cart.store", havingValue = "memory")
+    public CartStore inMemoryCartStore(ProductRepository productRepository,
+                                       UserRepository userRepository,
+                                       ProductCache productCache,
+                                       @Value("${app.cart.ttl:P7D}") Duration ttl) {
+        return new KeyValueCartStore(new InMemoryCartHashStore(Clock.systemUTC()),
+                productRepository, userRepository, productCache, ttl);
+    }
+}
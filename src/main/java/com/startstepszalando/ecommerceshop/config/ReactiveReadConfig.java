@@ -0,0 +1,57 @@
+package com.startstepszalando.ecommerceshop.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.startstepszalando.ecommerceshop.product.controller.ProductReadHandler;
+import com.startstepszalando.ecommerceshop.product.repository.ReactiveProductRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Non-blocking product reads, enabled with {@code app.products.reactive.enabled}. They are
+ * served on {@code app.products.reactive.port} while every endpoint, the product reads included,
+ * stays available on the servlet port.
+ * <p>
+ * The R2DBC pool is deliberately not a bean: Boot backs off from the {@code DataSource}, and with
+ * it JPA, as soon as a {@code ConnectionFactory} bean exists.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.products.reactive.enabled", havingValue = "true")
+public class ReactiveReadConfig {
+
+    @Bean(destroyMethod = "close")
+    public ReactiveProductRepository reactiveProductRepository(@Value("${app.products.reactive.r2dbc.url}") String url,
+                                                               @Value("${app.products.reactive.r2dbc.username}") String username,
+                                                               @Value("${app.products.reactive.r2dbc.password}") String password,
+                                                               @Value("${app.products.reactive.r2dbc.pool-size:10}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        ConnectionPool pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .maxSize(poolSize)
+                .build());
+        return new ReactiveProductRepository(pool);
+    }
+
+    @Bean
+    public ProductReadHandler productReadHandler(ReactiveProductRepository reactiveProductRepository,
+                                                 ProductCache productCache) {
+        return new ProductReadHandler(reactiveProductRepository, productCache);
+    }
+
+    @Bean
+    public ReactiveReadServer reactiveReadServer(ProductReadHandler productReadHandler,
+                                                 ObjectMapper objectMapper,
+                                                 @Value("${app.products.reactive.port:8081}") int port,
+                                                 @Value("${app.products.reactive.event-loop-threads:0}") int eventLoopThreads) {
+        int threads = eventLoopThreads > 0 ? eventLoopThreads : Runtime.getRuntime().availableProcessors();
+        return new ReactiveReadServer(productReadHandler.routes(), objectMapper, port, threads);
+    }
+}
@@ -0,0 +1,77 @@
+package com.startstepszalando.ecommerceshop.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * A Reactor Netty server next to the servlet container, serving the given routes on its own
+ * port with {@code eventLoopThreads} threads. Responses are written with the application's
+ * {@link ObjectMapper}, so bodies look the same as on the MVC endpoints.
+ */
+public class ReactiveReadServer implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveReadServer.class);
+
+    private final RouterFunction<ServerResponse> routes;
+    private final ObjectMapper objectMapper;
+    private final int port;
+    private final int eventLoopThreads;
+
+    private volatile LoopResources loops;
+    private volatile DisposableServer server;
+
+    public ReactiveReadServer(RouterFunction<ServerResponse> routes, ObjectMapper objectMapper,
+                              int port, int eventLoopThreads) {
+        this.routes = routes;
+        this.objectMapper = objectMapper;
+        this.port = port;
+        this.eventLoopThreads = eventLoopThreads;
+    }
+
+    @Override
+    public void start() {
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper)))
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(routes, strategies);
+
+        loops = LoopResources.create("reactive-reads", eventLoopThreads, true);
+        server = HttpServer.create()
+                .port(port)
+                .runOn(loops)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        logger.info("Reactive product reads listening on port {} with {} event loop threads",
+                server.port(), eventLoopThreads);
+    }
+
+    @Override
+    public void stop() {
+        server.disposeNow();
+        loops.disposeLater().block();
+        server = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * The bound port, which differs from the configured one when that was {@code 0}.
+     */
+    public int getPort() {
+        return server.port();
+    }
+}
@@ -0,0 +1,42 @@
+package com.startstepszalando.ecommerceshop.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Active only when {@code spring.threads.virtual.enabled=true} and the JVM supports virtual
+ * threads (Java 21+). Spring Boot then runs Tomcat requests, and the {@code @Transactional}
+ * service calls made on them, on virtual threads. On Java 17 the property is ignored and the
+ * regular Tomcat thread pool stays in charge.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    @Bean
+    public FilterRegistrationBean<ConnectionAdmissionFilter> connectionAdmissionFilter(
+            DataSource dataSource,
+            ObjectMapper objectMapper,
+            @Value("${app.virtual-threads.admission-timeout:PT30S}") Duration admissionTimeout) throws SQLException {
+        int maxConcurrentRequests = dataSource.isWrapperFor(HikariDataSource.class)
+                ? dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize()
+                : 10;
+
+        FilterRegistrationBean<ConnectionAdmissionFilter> registration = new FilterRegistrationBean<>(
+                new ConnectionAdmissionFilter(maxConcurrentRequests, admissionTimeout, objectMapper));
+        registration.addUrlPatterns("/api/*");
+        // Ahead of Spring Security, whose JWT filter already loads the user from the database
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
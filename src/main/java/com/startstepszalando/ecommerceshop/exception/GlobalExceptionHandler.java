@@ -1,14 +1,25 @@
 package com.startstepszalando.ecommerceshop.exception;
 
 import com.startstepszalando.ecommerceshop.exception.cart.EmptyCartException;
+import com.startstepszalando.ecommerceshop.exception.cart.InvalidCartOperationException;
+import com.startstepszalando.ecommerceshop.exception.order.InvalidIdempotencyKeyException;
+import com.startstepszalando.ecommerceshop.exception.order.InvalidOrderStatusException;
 import com.startstepszalando.ecommerceshop.exception.order.OrderNotFoundException;
 import com.startstepszalando.ecommerceshop.exception.product.DuplicateProductException;
 import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.exception.product.InvalidCursorException;
+import com.startstepszalando.ecommerceshop.exception.product.InvalidImportFileException;
 import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
+import com.startstepszalando.ecommerceshop.exception.product.ProductVersionConflictException;
 import com.startstepszalando.ecommerceshop.exception.token.TokenRefreshException;
 import com.startstepszalando.ecommerceshop.exception.token.TokenValidationException;
 import com.startstepszalando.ecommerceshop.exception.user.DuplicateUserException;
+import com.startstepszalando.ecommerceshop.exception.user.PasswordHashingUnavailableException;
 import com.startstepszalando.ecommerceshop.exception.user.UserNotFoundException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -41,6 +52,26 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
     }
 
+    // Request parameters constrained on @Validated controllers
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<ErrorMessage> handleConstraintViolations(ConstraintViolationException ex, WebRequest request) {
+        String errors = ex.getConstraintViolations()
+                .stream().map(violation -> parameterName(violation) + " " + violation.getMessage())
+                .sorted().collect(Collectors.joining(", "));
+        logger.error("Invalid input: " + errors);
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.BAD_REQUEST.value(),
+                new Date(),
+                "Invalid input: " + errors,
+                request.getDescription(false));
+        return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    private static String parameterName(ConstraintViolation<?> violation) {
+        String path = violation.getPropertyPath().toString();
+        return path.substring(path.lastIndexOf('.') + 1);
+    }
+
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<ErrorMessage> handleUserNotFoundException(UserNotFoundException ex, WebRequest request) {
         logger.error("User Not Found Error: {}", ex.getMessage());
@@ -67,6 +98,21 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(message);
     }
 
+    // Login or registration arrived while the password hashing queue was full
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<ErrorMessage> handlePasswordHashingUnavailableException(PasswordHashingUnavailableException ex, WebRequest request) {
+        logger.error("Password Hashing Unavailable Error: {}", ex.getMessage());
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(message);
+    }
+
     @ExceptionHandler(TokenValidationException.class)
     public ResponseEntity<ErrorMessage> handleTokenValidationException(TokenValidationException ex, WebRequest request) {
         logger.error("Token Validation Error: {}", ex.getMessage());
@@ -141,6 +187,55 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(ProductVersionConflictException.class)
+    public ResponseEntity<ErrorMessage> handleProductVersionConflictException(ProductVersionConflictException ex, WebRequest request) {
+        logger.error("Product Version Conflict Error: {}", ex.getMessage());
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.CONFLICT.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
+
+    // Optimistic or lock conflicts that were still failing after the retries ran out
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<ErrorMessage> handleConcurrencyFailureException(ConcurrencyFailureException ex, WebRequest request) {
+        logger.error("Concurrent Update Error: {}", ex.getMessage());
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.CONFLICT.value(),
+                new Date(),
+                "The resource is being updated concurrently, please retry",
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorMessage> handleInvalidCursorException(InvalidCursorException ex, WebRequest request) {
+        logger.error("Invalid Cursor Error: {}", ex.getMessage());
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.BAD_REQUEST.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(InvalidImportFileException.class)
+    public ResponseEntity<ErrorMessage> handleInvalidImportFileException(InvalidImportFileException ex, WebRequest request) {
+        logger.error("Invalid Import File Error: {}", ex.getMessage());
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.BAD_REQUEST.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(OrderNotFoundException.class)
     public ResponseEntity<ErrorMessage> handleOrderNotFoundException(OrderNotFoundException ex, WebRequest request) {
         logger.error("Order Not Found Error: {}", ex.getMessage());
@@ -153,6 +248,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(message, HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(InvalidOrderStatusException.class)
+    public ResponseEntity<ErrorMessage> handleInvalidOrderStatusException(InvalidOrderStatusException ex, WebRequest request) {
+        logger.error("Invalid Order Status Error: {}", ex.getMessage());
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.CONFLICT.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<ErrorMessage> handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException ex, WebRequest request) {
+        logger.error("Invalid Idempotency Key Error: {}", ex.getMessage());
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.BAD_REQUEST.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(EmptyCartException.class)
     public ResponseEntity<ErrorMessage> handleEmptyCartException(EmptyCartException ex, WebRequest request) {
         logger.error("Attempted to create order from an empty cart: {}", ex.getMessage());
@@ -164,6 +283,18 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorMessage, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(InvalidCartOperationException.class)
+    public ResponseEntity<ErrorMessage> handleInvalidCartOperationException(InvalidCartOperationException ex, WebRequest request) {
+        logger.error("Invalid Cart Operation Error: {}", ex.getMessage());
+        ErrorMessage message = new ErrorMessage(
+                HttpStatus.BAD_REQUEST.value(),
+                new Date(),
+                ex.getMessage(),
+                request.getDescription(false));
+
+        return new ResponseEntity<>(message, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(TokenRefreshException.class)
     public ResponseEntity<ErrorMessage> handleTokenRefreshException(TokenRefreshException ex, WebRequest request) {
         logger.error("Token Refresh Error: {}", ex.getMessage());
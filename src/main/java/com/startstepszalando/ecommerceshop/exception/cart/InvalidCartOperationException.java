@@ -0,0 +1,7 @@
+package com.startstepszalando.ecommerceshop.exception.cart;
+
+public class InvalidCartOperationException extends RuntimeException {
+    public InvalidCartOperationException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.startstepszalando.ecommerceshop.exception.order;
+
+public class InvalidIdempotencyKeyException extends RuntimeException {
+    public InvalidIdempotencyKeyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.startstepszalando.ecommerceshop.exception.product;
+
+public class InvalidCursorException extends Exception {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
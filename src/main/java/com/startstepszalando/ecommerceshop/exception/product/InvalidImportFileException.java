@@ -0,0 +1,7 @@
+package com.startstepszalando.ecommerceshop.exception.product;
+
+public class InvalidImportFileException extends Exception {
+    public InvalidImportFileException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.startstepszalando.ecommerceshop.exception.product;
+
+public class ProductVersionConflictException extends RuntimeException {
+    public ProductVersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.startstepszalando.ecommerceshop.exception.user;
+
+public class PasswordHashingUnavailableException extends RuntimeException {
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,9 @@
 package com.startstepszalando.ecommerceshop.jwt;
 
+import com.startstepszalando.ecommerceshop.user.service.UserImpl;
+import com.startstepszalando.ecommerceshop.user.service.UserRevocationService;
 import com.startstepszalando.ecommerceshop.user.service.UserService;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,6 +21,7 @@ import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -27,6 +31,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserService userDetailsService;
 
+    @Autowired
+    private JwtPrincipalCache principalCache;
+
+    @Autowired
+    private UserRevocationService userRevocationService;
+
+    // Build the principal from the token's claims instead of loading the user on the first request
+    @Value("${app.jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     @Override
@@ -34,11 +48,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtService.validateJwtToken(jwt)) {
-                String username = jwtService.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
+            UserDetails userDetails = jwt != null ? resolvePrincipal(jwt) : null;
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
 
@@ -51,6 +62,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails resolvePrincipal(String jwt) {
+        UserDetails cached = principalCache.get(jwt);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = jwtService.parseValidClaims(jwt);
+        if (claims == null) {
+            return null;
+        }
+
+        UserDetails userDetails = statelessPrincipal ? jwtService.getPrincipalFromClaims(claims) : null;
+        if (userDetails == null) {
+            userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+        }
+        if (userDetails instanceof UserImpl user && userRevocationService.isRevoked(user.getId(), claims.getIssuedAt())) {
+            return null;
+        }
+        principalCache.put(jwt, userDetails, claims.getExpiration());
+        return userDetails;
+    }
 
     private String parseJwt(HttpServletRequest request) {
         return jwtService.getJwtFromCookies(request);
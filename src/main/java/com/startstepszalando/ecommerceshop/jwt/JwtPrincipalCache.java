@@ -0,0 +1,91 @@
+package com.startstepszalando.ecommerceshop.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.startstepszalando.ecommerceshop.user.service.UserImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Keeps the principal of an already verified JWT until the token expires, so repeated requests
+ * with the same token skip signature verification and the user lookup. Entries are keyed by a
+ * SHA-256 hash of the token, never by the token itself.
+ */
+@Component
+public class JwtPrincipalCache {
+    private final Cache<String, CachedPrincipal> cache;
+
+    public JwtPrincipalCache(@Value("${app.jwt.principal-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedPrincipal value, long currentTime) {
+                        return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public UserDetails get(String token) {
+        CachedPrincipal cached = cache.getIfPresent(hash(token));
+        if (cached == null || !cached.expiresAt().isAfter(Instant.now())) {
+            return null;
+        }
+        return cached.principal();
+    }
+
+    public void put(String token, UserDetails principal, Date expiration) {
+        if (expiration == null) {
+            return;
+        }
+        cache.put(hash(token), new CachedPrincipal(withoutPassword(principal), expiration.toInstant()));
+    }
+
+    /**
+     * Drops every cached principal of the user, e.g. after their tokens were revoked.
+     */
+    public void evictUser(Long userId) {
+        cache.asMap().values().removeIf(cached ->
+                cached.principal() instanceof UserImpl user && userId.equals(user.getId()));
+    }
+
+    private UserDetails withoutPassword(UserDetails principal) {
+        if (principal instanceof UserImpl user) {
+            return new UserImpl(user.getId(), user.getUsername(), null, user.getAuthorities());
+        }
+        return principal;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record CachedPrincipal(UserDetails principal, Instant expiresAt) {
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.web.util.WebUtils;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.security.Key;
 import java.util.Date;
@@ -24,20 +25,28 @@ import java.util.Map;
 @Service
 public class JwtService {
     private static final Logger logger = LoggerFactory.getLogger(JwtService.class);
-
-    @Value("${app.secret-key}")
-    private String secretKey;
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLES_CLAIM = "roles";
 
     private final int jwtExpirationMs;
 
     private final String jwtCookie;
 
+    // The key and the parser are immutable and thread-safe, so they are built once instead of
+    // base64-decoding the secret on every request.
+    private final Key signInKey;
+
+    private final JwtParser jwtParser;
+
     public JwtService(@Value("${app.jwt.cookie}") String jwtCookie,
                       @Value("${app.jwt.expiration-ms}") int jwtExpirationMs,
                       @Value("${app.secret-key}") String secretKey) {
         this.jwtCookie = jwtCookie;
         this.jwtExpirationMs = jwtExpirationMs;
-        this.secretKey = secretKey;
+        this.signInKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signInKey)
+                .build();
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -46,10 +55,28 @@ public class JwtService {
         List<String> roles = userDetails.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .toList();
-        claims.put("roles", roles);
+        claims.put(ROLES_CLAIM, roles);
+        if (userDetails instanceof UserImpl user) {
+            claims.put(USER_ID_CLAIM, user.getId());
+        }
         return generateToken(claims, userDetails.getUsername());
     }
 
+    /**
+     * Builds the principal from the signed claims alone, without loading the user. Returns
+     * {@code null} for tokens that lack the user id or the roles, such as ones issued before the
+     * user id claim was added.
+     */
+    public UserImpl getPrincipalFromClaims(Claims claims) {
+        if (!(claims.get(USER_ID_CLAIM) instanceof Number userId) || !(claims.get(ROLES_CLAIM) instanceof List<?> roles)) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(String.valueOf(role)))
+                .toList();
+        return new UserImpl(userId.longValue(), claims.getSubject(), null, authorities);
+    }
+
     public String generateToken(Map<String, Object> claims, String subject) {
         long now = System.currentTimeMillis();
         return Jwts.builder()
@@ -57,7 +84,7 @@ public class JwtService {
                 .setSubject(subject)
                 .setIssuedAt(new Date(now))
                 .setExpiration(new Date(now + jwtExpirationMs))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -75,26 +102,25 @@ public class JwtService {
         return ResponseCookie.from(jwtCookie, jwt).path("/api").maxAge(10 * 60).httpOnly(true).build();
     }
 
-    private Key getSignInKey() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
-    }
-
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return jwtParser
                 .parseClaimsJws(token)
                 .getBody()
                 .getSubject();
     }
 
     public boolean validateJwtToken(String authToken) {
+        return parseValidClaims(authToken) != null;
+    }
+
+    /**
+     * Verifies the token once and returns its claims, or {@code null} if the token is not valid.
+     */
+    public Claims parseValidClaims(String authToken) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSignInKey())
-                    .build()
-                    .parse(authToken);
-            return true;
+            return jwtParser
+                    .parseClaimsJws(authToken)
+                    .getBody();
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
@@ -103,8 +129,10 @@ public class JwtService {
             logger.error("JWT token is unsupported: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("Invalid JWT signature: {}", e.getMessage());
         }
-        return false;
+        return null;
     }
 
     public String generateTokenFromUsername(String username) {
@@ -112,7 +140,7 @@ public class JwtService {
                 .setSubject(username)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSignInKey(), SignatureAlgorithm.HS256)
+                .signWith(signInKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 }
@@ -2,12 +2,15 @@ package com.startstepszalando.ecommerceshop.order.controller;
 
 import com.startstepszalando.ecommerceshop.cart.model.Cart;
 import com.startstepszalando.ecommerceshop.cart.service.CartService;
+import com.startstepszalando.ecommerceshop.exception.order.InvalidIdempotencyKeyException;
+import com.startstepszalando.ecommerceshop.exception.order.InvalidOrderStatusException;
 import com.startstepszalando.ecommerceshop.exception.order.OrderNotFoundException;
 import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
 import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
 import com.startstepszalando.ecommerceshop.order.dto.OrderResponse;
 import com.startstepszalando.ecommerceshop.order.model.Order;
 import com.startstepszalando.ecommerceshop.order.model.OrderStatus;
+import com.startstepszalando.ecommerceshop.order.service.OrderIdempotencyService;
 import com.startstepszalando.ecommerceshop.order.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -30,22 +33,26 @@ import java.nio.file.AccessDeniedException;
 public class OrderController {
     private final OrderService orderService;
     private final CartService cartService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
-    public OrderController(OrderService orderService, CartService cartService) {
+    public OrderController(OrderService orderService, CartService cartService,
+                           OrderIdempotencyService orderIdempotencyService) {
         this.orderService = orderService;
         this.cartService = cartService;
+        this.orderIdempotencyService = orderIdempotencyService;
     }
 
     @Operation(summary = "Create order from cart",
-            description = "Creates an order from the current user's cart. Requires authentication.",
+            description = "Creates an order from the current user's cart. Requires authentication. " +
+                    "With an Idempotency-Key header, a retry with the same key returns the original order instead of checking out again.",
             security = {@SecurityRequirement(name = "bearerAuth")},
             responses = {
                     @ApiResponse(responseCode = "200", description = "Order created successfully",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = OrderResponse.class))),
-                    @ApiResponse(responseCode = "400", description = "Insufficient stock or product not found",
+                    @ApiResponse(responseCode = "400", description = "Insufficient stock, product not found or invalid idempotency key",
                             content = @Content(mediaType = "application/json",
-                                    schema = @Schema(oneOf = {InsufficientStockException.class, ProductNotFoundException.class}))),
+                                    schema = @Schema(oneOf = {InsufficientStockException.class, ProductNotFoundException.class, InvalidIdempotencyKeyException.class}))),
                     @ApiResponse(responseCode = "403", description = "Access denied",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = AccessDeniedException.class))),
@@ -55,13 +62,18 @@ public class OrderController {
             })
     @PreAuthorize("isAuthenticated()")
     @PostMapping("/createOrderFromCart")
-    public ResponseEntity<?> createOrderFromCart() throws InsufficientStockException, ProductNotFoundException, AccessDeniedException {
-        Cart cart = cartService.getMyCart();
-        Order order = orderService.createOrderFromCart(cart);
-
+    public ResponseEntity<?> createOrderFromCart(@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey)
+            throws InsufficientStockException, ProductNotFoundException, AccessDeniedException {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String currentUsername = authentication.getName();
 
+        if (idempotencyKey != null) {
+            return ResponseEntity.ok(orderIdempotencyService.createOrderFromCart(idempotencyKey, currentUsername));
+        }
+
+        Cart cart = cartService.getMyCart();
+        Order order = orderService.createOrderFromCart(cart);
+
         OrderResponse orderResponse = orderService.getOrderDTO(order.getId(), currentUsername);
 
         return ResponseEntity.ok(orderResponse);
@@ -127,6 +139,9 @@ public class OrderController {
                     @ApiResponse(responseCode = "404", description = "Order not found",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = OrderNotFoundException.class))),
+                    @ApiResponse(responseCode = "409", description = "Order is cancelled and cannot change status",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = InvalidOrderStatusException.class))),
                     @ApiResponse(responseCode = "500", description = "Internal server error or unexpected error",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = Exception.class)))
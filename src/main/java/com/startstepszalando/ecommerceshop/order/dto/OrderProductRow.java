@@ -0,0 +1,16 @@
+package com.startstepszalando.ecommerceshop.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+@AllArgsConstructor
+public class OrderProductRow {
+    private Long orderId;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private BigDecimal price;
+}
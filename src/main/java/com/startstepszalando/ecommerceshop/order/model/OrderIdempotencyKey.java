@@ -0,0 +1,37 @@
+package com.startstepszalando.ecommerceshop.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Remembers the response to a checkout made with an {@code Idempotency-Key} header. The key is
+ * stored as the SHA-256 of the user id and the header value, so keys stay 32 bytes whatever the
+ * client sends and two users can use the same value.
+ */
+@Entity
+@Table(name = "order_idempotency_keys",
+        indexes = @Index(name = "idx_order_idempotency_keys_expires_at", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIdempotencyKey {
+    @Id
+    @Column(name = "key_hash", length = 32)
+    private byte[] keyHash;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Lob
+    @Column(name = "response")
+    private String response;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
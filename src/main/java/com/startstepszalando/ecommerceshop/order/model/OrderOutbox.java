@@ -0,0 +1,40 @@
+package com.startstepszalando.ecommerceshop.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order placed in pipeline mode that still waits for its stock to be reserved. The row is
+ * written in the same transaction as the order and deleted once the pipeline has handled it.
+ */
+@Entity
+@Table(name = "order_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false, unique = true)
+    private Long orderId;
+
+    // Failed processing attempts; the order is cancelled once this reaches the configured maximum
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public OrderOutbox(Long orderId) {
+        this.orderId = orderId;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -14,8 +14,11 @@ import java.util.Objects;
 @AllArgsConstructor
 @NoArgsConstructor
 public class OrderProduct {
+    // Pooled sequence ids let Hibernate batch the inserts of all lines of an order; IDENTITY
+    // would force one INSERT round trip per line to read back the generated key.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_product_seq")
+    @SequenceGenerator(name = "order_product_seq", sequenceName = "order_product_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -2,7 +2,9 @@ package com.startstepszalando.ecommerceshop.order.model;
 
 public enum OrderStatus {
     PENDING,
+    // Stock reserved by the order pipeline
+    CONFIRMED,
     SHIPPED,
     DELIVERED,
     CANCELLED
-}
\ No newline at end of file
+}
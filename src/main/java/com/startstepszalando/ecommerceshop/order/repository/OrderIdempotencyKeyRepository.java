@@ -0,0 +1,49 @@
+package com.startstepszalando.ecommerceshop.order.repository;
+
+import com.startstepszalando.ecommerceshop.order.model.OrderIdempotencyKey;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface OrderIdempotencyKeyRepository extends JpaRepository<OrderIdempotencyKey, byte[]> {
+    @Query("SELECT k.response FROM OrderIdempotencyKey k WHERE k.keyHash = :keyHash AND k.expiresAt > :now")
+    Optional<String> findResponse(@Param("keyHash") byte[] keyHash, @Param("now") LocalDateTime now);
+
+    /**
+     * Reads the latest committed response, waiting for a transaction that is still writing it.
+     */
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT k FROM OrderIdempotencyKey k WHERE k.keyHash = :keyHash")
+    Optional<OrderIdempotencyKey> findCommitted(@Param("keyHash") byte[] keyHash);
+
+    /**
+     * Claims the key for the current transaction. Returns 0 when another transaction holds it;
+     * if that transaction is still running, this waits for it to finish first.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO order_idempotency_keys (key_hash, expires_at) VALUES (:keyHash, :expiresAt)",
+            nativeQuery = true)
+    int claim(@Param("keyHash") byte[] keyHash, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE OrderIdempotencyKey k SET k.orderId = :orderId, k.response = :response WHERE k.keyHash = :keyHash")
+    int complete(@Param("keyHash") byte[] keyHash, @Param("orderId") Long orderId, @Param("response") String response);
+
+    @Modifying
+    @Query("DELETE FROM OrderIdempotencyKey k WHERE k.keyHash = :keyHash AND k.expiresAt <= :now")
+    int deleteIfExpired(@Param("keyHash") byte[] keyHash, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OrderIdempotencyKey k WHERE k.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,43 @@
+package com.startstepszalando.ecommerceshop.order.repository;
+
+import com.startstepszalando.ecommerceshop.order.model.OrderOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OrderOutboxRepository extends JpaRepository<OrderOutbox, Long> {
+    /**
+     * Locks the oldest entries with fewer than {@code maxAttempts} failures. Entries locked by
+     * another node are skipped rather than waited for, so nodes drain the outbox side by side.
+     */
+    @Query(value = "SELECT * FROM order_outbox WHERE attempts < :maxAttempts ORDER BY id LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OrderOutbox> lockBatch(@Param("limit") int limit, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Like {@link #lockBatch}, but leaves out the given entries, e.g. ones that already failed
+     * during the current run.
+     */
+    @Query(value = "SELECT * FROM order_outbox WHERE attempts < :maxAttempts AND id NOT IN (:excluded) " +
+            "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OrderOutbox> lockBatchExcluding(@Param("limit") int limit, @Param("maxAttempts") int maxAttempts,
+                                         @Param("excluded") Collection<Long> excluded);
+
+    @Query(value = "SELECT * FROM order_outbox WHERE attempts >= :maxAttempts ORDER BY id LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OrderOutbox> lockExhausted(@Param("limit") int limit, @Param("maxAttempts") int maxAttempts);
+
+    @Modifying
+    @Query("UPDATE OrderOutbox o SET o.attempts = o.attempts + 1 WHERE o.id IN :ids")
+    int incrementAttempts(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM OrderOutbox o WHERE o.orderId = :orderId")
+    int deleteByOrderId(@Param("orderId") Long orderId);
+}
@@ -1,12 +1,16 @@
 package com.startstepszalando.ecommerceshop.order.repository;
 
+import com.startstepszalando.ecommerceshop.order.dto.OrderProductRow;
 import com.startstepszalando.ecommerceshop.order.model.Order;
 import com.startstepszalando.ecommerceshop.order.model.OrderProduct;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +18,9 @@ public interface OrderProductRepository extends JpaRepository<OrderProduct, Long
     List<OrderProduct> findByOrderId(Long orderId);
 
     List<OrderProduct> findByProductId(Long productId);
+
+    @Query("SELECT new com.startstepszalando.ecommerceshop.order.dto.OrderProductRow(" +
+            "op.order.id, p.id, p.name, op.quantity, op.price) " +
+            "FROM OrderProduct op JOIN op.product p WHERE op.order.id IN :orderIds ORDER BY op.id ASC")
+    List<OrderProductRow> findRowsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
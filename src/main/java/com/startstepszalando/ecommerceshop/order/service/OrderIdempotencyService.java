@@ -0,0 +1,129 @@
+package com.startstepszalando.ecommerceshop.order.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.startstepszalando.ecommerceshop.cart.service.CartService;
+import com.startstepszalando.ecommerceshop.exception.order.InvalidIdempotencyKeyException;
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
+import com.startstepszalando.ecommerceshop.order.dto.OrderResponse;
+import com.startstepszalando.ecommerceshop.order.model.Order;
+import com.startstepszalando.ecommerceshop.order.repository.OrderIdempotencyKeyRepository;
+import com.startstepszalando.ecommerceshop.user.service.UserImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Makes checkout safe to retry. The first request with a key claims it, checks out and stores
+ * the response under the key, all in one transaction, so a failed checkout leaves the key free.
+ * A retry is answered from the stored response by one primary-key lookup. A retry that arrives
+ * while the first request is still running waits on the claimed row and then reads its response.
+ */
+@Slf4j
+@Service
+public class OrderIdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final OrderIdempotencyKeyRepository idempotencyKeyRepository;
+    private final OrderService orderService;
+    private final CartService cartService;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public OrderIdempotencyService(OrderIdempotencyKeyRepository idempotencyKeyRepository,
+                                   OrderService orderService,
+                                   CartService cartService,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.orders.idempotency.ttl:P1D}") Duration ttl) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.orderService = orderService;
+        this.cartService = cartService;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    @Transactional(rollbackFor = {InsufficientStockException.class, ProductNotFoundException.class, AccessDeniedException.class})
+    public OrderResponse createOrderFromCart(String idempotencyKey, String username)
+            throws InsufficientStockException, ProductNotFoundException, AccessDeniedException {
+        byte[] keyHash = hash(getCurrentUserId(), idempotencyKey);
+        LocalDateTime now = LocalDateTime.now();
+
+        Optional<String> previous = idempotencyKeyRepository.findResponse(keyHash, now);
+        if (previous.isPresent()) {
+            return read(previous.get());
+        }
+
+        idempotencyKeyRepository.deleteIfExpired(keyHash, now);
+        if (idempotencyKeyRepository.claim(keyHash, now.plus(ttl)) == 0) {
+            // A concurrent request with the same key committed first
+            String response = idempotencyKeyRepository.findCommitted(keyHash)
+                    .orElseThrow(() -> new IllegalStateException("Idempotency key was claimed but not found"))
+                    .getResponse();
+            return read(response);
+        }
+
+        Order order = orderService.createOrderFromCart(cartService.getMyCart());
+        OrderResponse response = orderService.getOrderDTO(order.getId(), username);
+        idempotencyKeyRepository.complete(keyHash, order.getId(), write(response));
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.idempotency.purge-interval:PT1H}",
+            initialDelayString = "${app.orders.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        int purged = idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private OrderResponse read(String response) {
+        try {
+            return objectMapper.readValue(response, OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored order response cannot be read", e);
+        }
+    }
+
+    private String write(OrderResponse response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Order response cannot be stored", e);
+        }
+    }
+
+    private static byte[] hash(Long userId, String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return digest.digest((userId + ":" + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private Long getCurrentUserId() {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (principal instanceof UserImpl) {
+            return ((UserImpl) principal).getId();
+        } else {
+            throw new RuntimeException("Expected principal to be an instance of UserImpl");
+        }
+    }
+}
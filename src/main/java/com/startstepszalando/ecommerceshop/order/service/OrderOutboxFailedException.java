@@ -0,0 +1,19 @@
+package com.startstepszalando.ecommerceshop.order.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Thrown when a locked batch of outbox entries could not be processed, naming the entries so the
+ * failure can be counted against them.
+ */
+@Getter
+class OrderOutboxFailedException extends RuntimeException {
+    private final List<Long> entryIds;
+
+    OrderOutboxFailedException(List<Long> entryIds, Throwable cause) {
+        super("Order outbox entries " + entryIds + " failed: " + cause.getMessage(), cause);
+        this.entryIds = entryIds;
+    }
+}
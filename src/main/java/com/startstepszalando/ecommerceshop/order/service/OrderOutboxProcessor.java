@@ -0,0 +1,153 @@
+package com.startstepszalando.ecommerceshop.order.service;
+
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.order.model.OrderOutbox;
+import com.startstepszalando.ecommerceshop.order.model.OrderStatus;
+import com.startstepszalando.ecommerceshop.order.repository.OrderOutboxRepository;
+import com.startstepszalando.ecommerceshop.order.repository.OrderProductRepository;
+import com.startstepszalando.ecommerceshop.order.repository.OrderRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Handles one batch of outbox entries per transaction. The entries and the stock of every product
+ * in the batch are locked up front; stock is then allocated to the orders in the order they were
+ * placed, each order getting all of its lines or none, and reserved with a single update. Orders
+ * that cannot be covered are cancelled. If anything fails the transaction rolls back, so no stock
+ * stays reserved for an order that was not confirmed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.orders.pipeline.enabled", havingValue = "true")
+public class OrderOutboxProcessor {
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final OrderRepository orderRepository;
+    private final OrderProductRepository orderProductRepository;
+    private final ProductService productService;
+    private final int maxAttempts;
+
+    public OrderOutboxProcessor(OrderOutboxRepository orderOutboxRepository,
+                                OrderRepository orderRepository,
+                                OrderProductRepository orderProductRepository,
+                                ProductService productService,
+                                @Value("${app.orders.pipeline.max-attempts:5}") int maxAttempts) {
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.orderRepository = orderRepository;
+        this.orderProductRepository = orderProductRepository;
+        this.productService = productService;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Returns the number of outbox entries handled, 0 when there is nothing left to do. Entries in
+     * {@code excluded} are left alone. If the batch fails, an {@link OrderOutboxFailedException}
+     * names the entries it had locked.
+     */
+    @Transactional
+    public int processBatch(int limit, Collection<Long> excluded) {
+        List<OrderOutbox> entries = excluded.isEmpty()
+                ? orderOutboxRepository.lockBatch(limit, maxAttempts)
+                : orderOutboxRepository.lockBatchExcluding(limit, maxAttempts, excluded);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            process(entries);
+        } catch (RuntimeException e) {
+            throw new OrderOutboxFailedException(entries.stream().map(OrderOutbox::getId).toList(), e);
+        }
+        return entries.size();
+    }
+
+    private void process(List<OrderOutbox> entries) {
+        List<Long> orderIds = entries.stream().map(OrderOutbox::getOrderId).toList();
+        // Orders cancelled in the meantime are dropped from the outbox without reserving anything
+        Set<Long> pending = new HashSet<>(orderRepository.findIdsByIdInAndStatus(orderIds, OrderStatus.PENDING));
+
+        Map<Long, Map<Long, Integer>> linesByOrder = new HashMap<>();
+        Set<Long> productIds = new HashSet<>();
+        if (!pending.isEmpty()) {
+            orderProductRepository.findRowsByOrderIdIn(pending).forEach(row -> {
+                linesByOrder.computeIfAbsent(row.getOrderId(), id -> new HashMap<>())
+                        .merge(row.getProductId(), row.getQuantity(), Integer::sum);
+                productIds.add(row.getProductId());
+            });
+        }
+        Map<Long, Integer> available = new HashMap<>(productService.lockStock(productIds));
+
+        Map<Long, Integer> reserved = new HashMap<>();
+        List<Long> confirmed = new ArrayList<>();
+        List<Long> cancelled = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            if (!pending.contains(orderId)) {
+                continue;
+            }
+            Map<Long, Integer> lines = linesByOrder.getOrDefault(orderId, Map.of());
+            boolean covered = !lines.isEmpty() && lines.entrySet().stream()
+                    .allMatch(line -> available.getOrDefault(line.getKey(), 0) >= line.getValue());
+            if (covered) {
+                lines.forEach((productId, quantity) -> {
+                    available.merge(productId, -quantity, Integer::sum);
+                    reserved.merge(productId, quantity, Integer::sum);
+                });
+                confirmed.add(orderId);
+            } else {
+                cancelled.add(orderId);
+            }
+        }
+
+        if (!reserved.isEmpty()) {
+            try {
+                productService.reserveStock(reserved);
+            } catch (InsufficientStockException e) {
+                // Cannot happen while the stock rows are locked
+                throw new IllegalStateException("Stock changed while locked", e);
+            }
+        }
+        if (!confirmed.isEmpty()) {
+            orderRepository.updateStatus(confirmed, OrderStatus.CONFIRMED);
+        }
+        if (!cancelled.isEmpty()) {
+            orderRepository.updateStatus(cancelled, OrderStatus.CANCELLED);
+            log.info("Cancelled orders {} for insufficient stock", cancelled);
+        }
+        orderOutboxRepository.deleteAllByIdInBatch(entries.stream().map(OrderOutbox::getId).toList());
+    }
+
+    /**
+     * Counts a failed attempt against the given entries. Entries removed in the meantime, e.g.
+     * because their order was cancelled, are ignored.
+     */
+    @Transactional
+    public void recordFailure(Collection<Long> entryIds) {
+        orderOutboxRepository.incrementAttempts(entryIds);
+    }
+
+    /**
+     * Cancels orders whose entries failed {@code max-attempts} times. Their failed attempts were
+     * rolled back, so they hold no stock.
+     */
+    @Transactional
+    public int cancelExhausted(int limit) {
+        List<OrderOutbox> entries = orderOutboxRepository.lockExhausted(limit, maxAttempts);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> orderIds = entries.stream().map(OrderOutbox::getOrderId).toList();
+        List<Long> pending = orderRepository.findIdsByIdInAndStatus(orderIds, OrderStatus.PENDING);
+        if (!pending.isEmpty()) {
+            orderRepository.updateStatus(pending, OrderStatus.CANCELLED);
+            log.warn("Cancelled orders {} after {} failed pipeline attempts", pending, maxAttempts);
+        }
+        orderOutboxRepository.deleteAllByIdInBatch(entries.stream().map(OrderOutbox::getId).toList());
+        return entries.size();
+    }
+}
@@ -0,0 +1,112 @@
+package com.startstepszalando.ecommerceshop.order.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Drains the order outbox on a fixed pool of workers. Each worker handles batches until the
+ * outbox is empty. Workers are started by the poller and right after an order is committed;
+ * when all of them are busy, further starts are dropped rather than queued, since a running
+ * worker picks up new entries anyway.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.orders.pipeline.enabled", havingValue = "true")
+public class OrderPipeline implements DisposableBean {
+    private final OrderOutboxProcessor processor;
+    private final ThreadPoolTaskExecutor executor;
+    private final int workers;
+    private final int batchSize;
+
+    public OrderPipeline(OrderOutboxProcessor processor,
+                         @Value("${app.orders.pipeline.workers:2}") int workers,
+                         @Value("${app.orders.pipeline.batch-size:100}") int batchSize) {
+        this.processor = processor;
+        this.workers = workers;
+        this.batchSize = batchSize;
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("order-pipeline-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+    }
+
+    @Scheduled(fixedDelayString = "${app.orders.pipeline.poll-interval:PT1S}")
+    public void poll() {
+        for (int i = 0; i < workers && startWorker(); i++) {
+            // Start workers until all are busy
+        }
+    }
+
+    @TransactionalEventListener
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        startWorker();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    private boolean startWorker() {
+        try {
+            executor.execute(this::drain);
+            return true;
+        } catch (TaskRejectedException e) {
+            return false;
+        }
+    }
+
+    private void drain() {
+        Set<Long> failed = new HashSet<>();
+        try {
+            while (processor.cancelExhausted(batchSize) == batchSize) {
+                // Keep going until no exhausted entries are left
+            }
+            while (processBatch(failed) == batchSize) {
+                // A full batch means more entries may be waiting
+            }
+        } catch (RuntimeException e) {
+            log.warn("Order pipeline worker stopped, the next poll retries: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Retries a failed batch one entry at a time, so a single bad order only counts attempts
+     * against itself. An entry that failed is left out for the rest of this run and retried by a
+     * later poll, so a passing fault costs it one attempt rather than all of them.
+     */
+    private int processBatch(Set<Long> failed) {
+        try {
+            return processor.processBatch(batchSize, failed);
+        } catch (RuntimeException e) {
+            log.warn("Order outbox batch failed, retrying its entries one by one", e);
+            for (int i = 0; i < batchSize; i++) {
+                try {
+                    if (processor.processBatch(1, failed) == 0) {
+                        return 0;
+                    }
+                } catch (OrderOutboxFailedException single) {
+                    log.warn("Order outbox entry failed", single);
+                    processor.recordFailure(single.getEntryIds());
+                    failed.addAll(single.getEntryIds());
+                }
+            }
+            return batchSize;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.startstepszalando.ecommerceshop.order.service;
+
+/**
+ * Published when an order has been written to the outbox, so the pipeline can pick it up
+ * without waiting for its next poll.
+ */
+public record OrderPlacedEvent(Long orderId) {
+}
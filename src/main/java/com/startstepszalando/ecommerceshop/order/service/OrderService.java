@@ -4,20 +4,26 @@ import com.startstepszalando.ecommerceshop.cart.model.Cart;
 import com.startstepszalando.ecommerceshop.cart.model.CartItem;
 import com.startstepszalando.ecommerceshop.cart.service.CartService;
 import com.startstepszalando.ecommerceshop.exception.cart.EmptyCartException;
+import com.startstepszalando.ecommerceshop.exception.order.InvalidOrderStatusException;
 import com.startstepszalando.ecommerceshop.exception.order.OrderNotFoundException;
 import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
 import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
 import com.startstepszalando.ecommerceshop.exception.user.UserNotFoundException;
 import com.startstepszalando.ecommerceshop.order.dto.OrderProductResponse;
+import com.startstepszalando.ecommerceshop.order.dto.OrderProductRow;
 import com.startstepszalando.ecommerceshop.order.dto.OrderResponse;
 import com.startstepszalando.ecommerceshop.order.model.Order;
+import com.startstepszalando.ecommerceshop.order.model.OrderOutbox;
 import com.startstepszalando.ecommerceshop.order.model.OrderProduct;
 import com.startstepszalando.ecommerceshop.order.model.OrderStatus;
+import com.startstepszalando.ecommerceshop.order.repository.OrderOutboxRepository;
 import com.startstepszalando.ecommerceshop.order.repository.OrderProductRepository;
 import com.startstepszalando.ecommerceshop.order.repository.OrderRepository;
 import com.startstepszalando.ecommerceshop.product.service.ProductService;
 import com.startstepszalando.ecommerceshop.user.model.User;
 import com.startstepszalando.ecommerceshop.user.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -28,7 +34,12 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.nio.file.AccessDeniedException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
@@ -37,24 +48,38 @@ public class OrderService {
     private final OrderProductRepository orderProductRepository;
     private final ProductService productService;
     private final UserService userService;
+    private final OrderOutboxRepository orderOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean pipelineEnabled;
 
     public OrderService(CartService cartService, OrderRepository orderRepository,
                         OrderProductRepository orderProductRepository,
-                        ProductService productService, UserService userService) {
+                        ProductService productService, UserService userService,
+                        OrderOutboxRepository orderOutboxRepository,
+                        ApplicationEventPublisher eventPublisher,
+                        @Value("${app.orders.pipeline.enabled:false}") boolean pipelineEnabled) {
         this.cartService = cartService;
         this.orderRepository = orderRepository;
         this.orderProductRepository = orderProductRepository;
         this.productService = productService;
         this.userService = userService;
+        this.orderOutboxRepository = orderOutboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.pipelineEnabled = pipelineEnabled;
     }
 
-    @Transactional
+    /**
+     * Turns the cart into a {@code PENDING} order. Stock is reserved right away unless the order
+     * pipeline is enabled; then the order is written with an outbox row instead, and the pipeline
+     * reserves its stock and moves it to {@code CONFIRMED} or {@code CANCELLED} later.
+     */
+    @Transactional(rollbackFor = {InsufficientStockException.class, ProductNotFoundException.class})
     public Order createOrderFromCart(Cart cart) throws InsufficientStockException, EmptyCartException, UserNotFoundException, ProductNotFoundException {
         if (cart.getItems() == null || cart.getItems().isEmpty()) {
             throw new EmptyCartException("Cannot create order from an empty cart.");
         }
 
-        BigDecimal totalCost = cartService.calculateTotalCost();
+        BigDecimal totalCost = cartService.calculateTotalCost(cart);
         if (totalCost.compareTo(BigDecimal.ZERO) <= 0) {
             throw new EmptyCartException("Cannot create order from an empty cart.");
         }
@@ -70,8 +95,17 @@ public class OrderService {
         order.setStatus(OrderStatus.PENDING);
         order.setTotalPrice(totalCost);
 
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItem cartItem : cart.getItems()) {
+            quantities.put(cartItem.getProduct().getId(), cartItem.getQuantity());
+        }
+        if (!pipelineEnabled) {
+            productService.reserveStock(quantities);
+        }
+
         Order savedOrder = orderRepository.saveAndFlush(order);
 
+        List<OrderProduct> orderProducts = new ArrayList<>(cart.getItems().size());
         for (CartItem cartItem : cart.getItems()) {
             OrderProduct orderProduct = new OrderProduct();
             orderProduct.setOrder(savedOrder);
@@ -79,12 +113,14 @@ public class OrderService {
             orderProduct.setQuantity(cartItem.getQuantity());
             orderProduct.setPrice(cartItem.getProduct().getPrice());
 
-            productService.updateProductStock(cartItem.getProduct().getId(), cartItem.getQuantity());
-
             savedOrder.getProducts().add(orderProduct);
-            orderProduct.setOrder(savedOrder);
+            orderProducts.add(orderProduct);
+        }
+        orderProductRepository.saveAll(orderProducts);
 
-            orderProductRepository.save(orderProduct);
+        if (pipelineEnabled) {
+            orderOutboxRepository.save(new OrderOutbox(savedOrder.getId()));
+            eventPublisher.publishEvent(new OrderPlacedEvent(savedOrder.getId()));
         }
 
         cartService.clearCart(cart);
@@ -92,11 +128,32 @@ public class OrderService {
         return savedOrder;
     }
 
+    /**
+     * Cancelling an order that holds reserved stock gives the stock back. An order still waiting
+     * in the outbox holds none; its outbox row is removed first, which also waits for a pipeline
+     * worker that is processing it, so the status read afterwards is final. A cancelled order no
+     * longer holds stock and cannot be reopened.
+     */
     @Transactional
     public void updateOrderStatus(Long orderId, OrderStatus newStatus) throws OrderNotFoundException {
-        Order order = orderRepository.findById(orderId)
+        boolean awaitingReservation = newStatus == OrderStatus.CANCELLED
+                && orderOutboxRepository.deleteByOrderId(orderId) > 0;
+
+        Order order = orderRepository.findForUpdateById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found with id: " + orderId));
 
+        if (order.getStatus() == OrderStatus.CANCELLED && newStatus != OrderStatus.CANCELLED) {
+            throw new InvalidOrderStatusException("Order " + orderId + " is cancelled and cannot be moved to " + newStatus);
+        }
+
+        boolean holdsStock = order.getStatus() == OrderStatus.PENDING || order.getStatus() == OrderStatus.CONFIRMED;
+        if (newStatus == OrderStatus.CANCELLED && holdsStock && !awaitingReservation) {
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            orderProductRepository.findRowsByOrderIdIn(List.of(orderId))
+                    .forEach(row -> quantities.merge(row.getProductId(), row.getQuantity(), Integer::sum));
+            productService.releaseStock(quantities);
+        }
+
         order.setStatus(newStatus);
         orderRepository.save(order);
     }
@@ -124,42 +181,50 @@ public class OrderService {
         return orderResponse;
     }
 
+    /**
+     * Loads a page of orders in a fixed number of queries regardless of the page size: the page
+     * of order ids (plus its count), the orders with their user, and the order lines as a
+     * projection joined to the product name.
+     */
+    @Transactional(readOnly = true)
     public Page<OrderResponse> getAllOrdersForUser(Long userId, int page, int size) throws ProductNotFoundException, AccessDeniedException {
         Pageable pageable = PageRequest.of(page, size);
-        Page<Order> orders = orderRepository.findAllByUserId(userId, pageable);
+        Page<Long> orderIds = orderRepository.findIdsByUserId(userId, pageable);
+
+        if (orderIds.isEmpty()) {
+            throw new ProductNotFoundException(
+                    String.format("No orders found for user with ID %d", userId));
+        }
+
+        Map<Long, Order> orders = orderRepository.findWithUserByIdIn(orderIds.getContent()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
 
         String currentUsername = SecurityContextHolder.getContext().getAuthentication().getName();
 
-        if (orders.stream().anyMatch(order -> !order.getUser().getEmail().equals(currentUsername)) && userService.isAdmin()) {
+        if (orders.values().stream().anyMatch(order -> !order.getUser().getEmail().equals(currentUsername)) && userService.isAdmin()) {
             throw new AccessDeniedException("Not authorized to view orders for this user");
         }
 
-        if (orders.isEmpty()) {
-            throw new ProductNotFoundException(
-                    String.format("No orders found for user with ID %d", userId));
-        }
+        Map<Long, List<OrderProductResponse>> productsByOrderId = orderProductRepository
+                .findRowsByOrderIdIn(orderIds.getContent()).stream()
+                .collect(Collectors.groupingBy(OrderProductRow::getOrderId,
+                        Collectors.mapping(row -> new OrderProductResponse(row.getProductId(),
+                                row.getProductName(), row.getQuantity(), row.getPrice()), Collectors.toList())));
 
-        return orders.map(this::convertToOrderResponseDTO);
+        return orderIds.map(orderId -> convertToOrderResponseDTO(orders.get(orderId),
+                productsByOrderId.getOrDefault(orderId, List.of())));
     }
 
-    private OrderResponse convertToOrderResponseDTO(Order order) {
+    private OrderResponse convertToOrderResponseDTO(Order order, List<OrderProductResponse> products) {
         OrderResponse orderResponse = new OrderResponse();
         orderResponse.setId(order.getId());
         orderResponse.setOrderDate(order.getOrderDate());
         orderResponse.setTotalPrice(order.getTotalPrice());
         orderResponse.setStatus(order.getStatus().toString());
-        orderResponse.setProducts(order.getProducts().stream()
-                .map(this::convertToOrderProductResponseDTO)
-                .toList());
+        orderResponse.setProducts(products);
         return orderResponse;
     }
 
-    private OrderProductResponse convertToOrderProductResponseDTO(OrderProduct orderProduct) {
-        OrderProductResponse productResponse = new OrderProductResponse();
-        productResponse.setProductId(orderProduct.getId());
-        return productResponse;
-    }
-
     private OrderProductResponse convertToOrderProductDTO(OrderProduct orderProduct) {
         OrderProductResponse response = new OrderProductResponse();
         response.setProductId(orderProduct.getProduct().getId());
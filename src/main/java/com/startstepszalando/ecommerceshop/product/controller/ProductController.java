@@ -3,12 +3,22 @@ package com.startstepszalando.ecommerceshop.product.controller;
 import com.startstepszalando.ecommerceshop.auth.AuthenticationResponse;
 import com.startstepszalando.ecommerceshop.exception.product.DuplicateProductException;
 import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.exception.product.InvalidCursorException;
+import com.startstepszalando.ecommerceshop.exception.product.InvalidImportFileException;
 import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
+import com.startstepszalando.ecommerceshop.exception.product.ProductVersionConflictException;
 import com.startstepszalando.ecommerceshop.exception.user.UserNotFoundException;
+import com.startstepszalando.ecommerceshop.product.dto.ProductCursorPaginationRequest;
+import com.startstepszalando.ecommerceshop.product.dto.ProductImportFormat;
+import com.startstepszalando.ecommerceshop.product.dto.ProductImportRequest;
 import com.startstepszalando.ecommerceshop.product.dto.ProductPaginationRequest;
 
 import com.startstepszalando.ecommerceshop.product.dto.ProductRequest;
+import com.startstepszalando.ecommerceshop.product.dto.ProductSearchRequest;
+import com.startstepszalando.ecommerceshop.product.dto.ProductSortKey;
 import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.service.ProductExportService;
+import com.startstepszalando.ecommerceshop.product.service.ProductImportService;
 import com.startstepszalando.ecommerceshop.product.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -17,24 +27,40 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.data.domain.Page;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.AccessDeniedException;
 import java.util.List;
 
 @RestController
+@Validated
 @RequestMapping("/api/products")
 @Tag(name = "Product", description = "Product management APIs")
 public class ProductController {
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String CSV = "text/csv";
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductImportService productImportService,
+                             ProductExportService productExportService) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.productExportService = productExportService;
     }
 
     @Operation(summary = "Add a new product",
@@ -67,6 +93,35 @@ public class ProductController {
         return ResponseEntity.ok().body(addedProduct);
     }
 
+    @Operation(summary = "Import products in bulk",
+            description = "This allows users with the ADMIN role to import a product feed as NDJSON (one product object per line) or CSV (header row with name, price, description and stock). The body is read as a stream and written in batches. Rows that are invalid or duplicate an existing name and price are reported and skipped.",
+            security = {@SecurityRequirement(name = "bearerAuth")},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import finished, with per-row errors and a throughput summary",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ProductImportRequest.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid import file",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = InvalidImportFileException.class))),
+                    @ApiResponse(responseCode = "404", description = "User not found",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = UserNotFoundException.class))),
+                    @ApiResponse(responseCode = "500", description = "Internal server error or unexpected error",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = Exception.class)))
+            })
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping(value = "/bulk", consumes = {NDJSON, CSV})
+    public ResponseEntity<ProductImportRequest> importProducts(@RequestParam Long adminId,
+                                                               @RequestHeader("Content-Type") String contentType,
+                                                               InputStream body)
+            throws IOException, InvalidImportFileException, AccessDeniedException {
+        ProductImportFormat format = contentType.startsWith(CSV) ? ProductImportFormat.CSV : ProductImportFormat.NDJSON;
+        ProductImportRequest importResponse = productImportService.importProducts(body, format, adminId);
+
+        return ResponseEntity.ok().body(importResponse);
+    }
+
     @Operation(summary = "Update an existing product",
             description = "This allows users with the ADMIN role to update an existing product. The product name should be unique for every user.",
             security = {@SecurityRequirement(name = "bearerAuth")},
@@ -83,6 +138,9 @@ public class ProductController {
                     @ApiResponse(responseCode = "404", description = "Product not found",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = ProductNotFoundException.class))),
+                    @ApiResponse(responseCode = "409", description = "The product was changed since the given version",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ProductVersionConflictException.class))),
                     @ApiResponse(responseCode = "404", description = "User not found",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = UserNotFoundException.class))),
@@ -97,6 +155,7 @@ public class ProductController {
                                                  ProductRequest productRequest)
             throws ProductNotFoundException, InsufficientStockException, AccessDeniedException {
         Product product = convertDtoToEntity(productRequest);
+        product.setVersion(productRequest.getVersion());
         Product updatedProduct = productService.updateProduct(id, product, productRequest.getAdminId());
 
         return ResponseEntity.ok().body(updatedProduct);
@@ -185,6 +244,72 @@ public class ProductController {
         return ResponseEntity.ok().body(productsResponse);
     }
 
+    @Operation(summary = "Retrieve products with a cursor",
+            description = "Returns products in keyset-paginated order. Pass the nextCursor of a response as the after parameter to read the following page. No total count is returned, so every page costs the same regardless of depth.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Products are listed after the given cursor",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ProductCursorPaginationRequest.class))),
+                    @ApiResponse(responseCode = "400", description = "Invalid cursor",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = InvalidCursorException.class))),
+                    @ApiResponse(responseCode = "400", description = "Size is not between 1 and 100",
+                            content = @Content(mediaType = "application/json")),
+                    @ApiResponse(responseCode = "500", description = "Internal server error or unexpected error",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = Exception.class)))
+            })
+    @GetMapping("/cursor")
+    public ResponseEntity<ProductCursorPaginationRequest> getProductsAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "3") @Min(1) @Max(100) int size,
+            @RequestParam(defaultValue = "ID") ProductSortKey sort)
+            throws InvalidCursorException {
+        ProductCursorPaginationRequest productsResponse = productService.getProductsAfter(after, size, sort);
+
+        return ResponseEntity.ok().body(productsResponse);
+    }
+
+    @Operation(summary = "Export the catalog",
+            description = "This allows users with the ADMIN role to download every product as NDJSON, one product object per line, in id order. The response is streamed from a database cursor on a background thread, so it does not hold up other requests.",
+            security = {@SecurityRequirement(name = "bearerAuth")},
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Products are streamed as NDJSON",
+                            content = @Content(mediaType = NDJSON)),
+                    @ApiResponse(responseCode = "500", description = "Internal server error or unexpected error",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = Exception.class)))
+            })
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = productExportService::exportProducts;
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(summary = "Search products",
+            description = "Full-text search over product names and descriptions. Every word of the query must match; results are ranked by relevance, with matches in the name weighted above matches in the description.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Matching products are listed by relevance",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = ProductSearchRequest.class))),
+                    @ApiResponse(responseCode = "400", description = "Page is not between 0 and 1000 or size is not between 1 and 100",
+                            content = @Content(mediaType = "application/json")),
+                    @ApiResponse(responseCode = "500", description = "Internal server error or unexpected error",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = Exception.class)))
+            })
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchRequest> searchProducts(
+            @RequestParam("q") String query,
+            @RequestParam(defaultValue = "0") @Min(0) @Max(1000) int page,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int size) {
+        ProductSearchRequest searchResponse = productService.searchProducts(query, page, size);
+
+        return ResponseEntity.ok().body(searchResponse);
+    }
+
     private Product convertDtoToEntity(ProductRequest productRequest) {
         Product product = new Product();
         product.setName(productRequest.getName());
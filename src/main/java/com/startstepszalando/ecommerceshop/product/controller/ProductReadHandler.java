@@ -0,0 +1,95 @@
+package com.startstepszalando.ecommerceshop.product.controller;
+
+import com.startstepszalando.ecommerceshop.exception.ErrorMessage;
+import com.startstepszalando.ecommerceshop.product.dto.ProductPaginationRequest;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ReactiveProductRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Date;
+
+/**
+ * Read-only twins of {@code GET /api/products} and {@code GET /api/products/{id}} from
+ * {@link ProductController}, answering with the same bodies and error messages. Single
+ * products are served from the product cache when present and from R2DBC otherwise, so a
+ * request never blocks its event loop thread.
+ */
+public class ProductReadHandler {
+    private final ReactiveProductRepository productRepository;
+    private final ProductCache productCache;
+
+    public ProductReadHandler(ReactiveProductRepository productRepository, ProductCache productCache) {
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/products/{id}", this::getProduct)
+                .GET("/api/products", this::getProducts)
+                .build();
+    }
+
+    Mono<ServerResponse> getProduct(ServerRequest request) {
+        long id;
+        try {
+            id = Long.parseLong(request.pathVariable("id"));
+        } catch (NumberFormatException e) {
+            return error(request, HttpStatus.BAD_REQUEST, "Product id must be a number");
+        }
+
+        return productCache.getIfPresent(id)
+                .map(Mono::just)
+                .orElseGet(() -> productRepository.findById(id))
+                .flatMap(product -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(product))
+                .switchIfEmpty(Mono.defer(() -> error(request, HttpStatus.NOT_FOUND,
+                        String.format("Product with id %d is not found", id))));
+    }
+
+    Mono<ServerResponse> getProducts(ServerRequest request) {
+        int page;
+        int size;
+        try {
+            page = Integer.parseInt(request.queryParam("page").orElse("0"));
+            size = Integer.parseInt(request.queryParam("size").orElse("3"));
+        } catch (NumberFormatException e) {
+            return error(request, HttpStatus.BAD_REQUEST, "Page and size must be numbers");
+        }
+        if (page < 0 || size < 1) {
+            return error(request, HttpStatus.BAD_REQUEST, "Page must not be negative and size must be at least 1");
+        }
+
+        long offset = (long) page * size;
+        return Mono.zip(productRepository.findPage(offset, size).map(ProductReadHandler::toProductRequest).collectList(),
+                        productRepository.count())
+                .flatMap(pageAndTotal -> {
+                    long totalProducts = pageAndTotal.getT2();
+                    int totalPages = (int) ((totalProducts + size - 1) / size);
+                    if (pageAndTotal.getT1().isEmpty()) {
+                        return error(request, HttpStatus.NOT_FOUND,
+                                String.format("Page %d not found. Products has %d pages", page, totalPages));
+                    }
+
+                    ProductPaginationRequest response = new ProductPaginationRequest(pageAndTotal.getT1(),
+                            page, offset, size, totalPages, totalProducts);
+                    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(response);
+                });
+    }
+
+    private static ProductPaginationRequest.ProductRequest toProductRequest(Product product) {
+        return new ProductPaginationRequest.ProductRequest(product.getName(), product.getPrice(),
+                product.getDescription(), product.getStock());
+    }
+
+    private static Mono<ServerResponse> error(ServerRequest request, HttpStatus status, String message) {
+        ErrorMessage body = new ErrorMessage(status.value(), new Date(), message, "uri=" + request.path());
+        return ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON).bodyValue(body);
+    }
+}
@@ -0,0 +1,57 @@
+package com.startstepszalando.ecommerceshop.product.dto;
+
+import com.startstepszalando.ecommerceshop.exception.product.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset-paginated product listing. It carries the sort key and the id
+ * of the last product a client has seen, so the next page can be read with a seek predicate
+ * instead of an OFFSET.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductCursor {
+    private final ProductSortKey sortKey;
+    private final BigDecimal price;
+    private final Long id;
+
+    public static ProductCursor first(ProductSortKey sortKey) {
+        return new ProductCursor(sortKey, null, null);
+    }
+
+    public boolean isFirstPage() {
+        return id == null;
+    }
+
+    public String encode() {
+        String raw = sortKey == ProductSortKey.PRICE
+                ? "p:" + price.toPlainString() + ":" + id
+                : "i:" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String cursor, ProductSortKey sortKey) throws InvalidCursorException {
+        if (cursor == null || cursor.isBlank()) {
+            return first(sortKey);
+        }
+
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (sortKey == ProductSortKey.PRICE && parts.length == 3 && parts[0].equals("p")) {
+                return new ProductCursor(sortKey, new BigDecimal(parts[1]), Long.parseLong(parts[2]));
+            }
+            if (sortKey == ProductSortKey.ID && parts.length == 2 && parts[0].equals("i")) {
+                return new ProductCursor(sortKey, null, Long.parseLong(parts[1]));
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through to the error below
+        }
+
+        throw new InvalidCursorException(String.format("Cursor %s is not valid for sort order %s", cursor, sortKey.name()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.startstepszalando.ecommerceshop.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductCursorPaginationRequest {
+    private List<ProductPaginationRequest.ProductRequest> products;
+    private int limit;
+    private String sort;
+    private String nextCursor;
+}
@@ -0,0 +1,16 @@
+package com.startstepszalando.ecommerceshop.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+@Getter
+@AllArgsConstructor
+public class ProductExportRow {
+    private Long id;
+    private String name;
+    private BigDecimal price;
+    private String description;
+    private Integer stock;
+}
@@ -0,0 +1,27 @@
+package com.startstepszalando.ecommerceshop.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductImportRequest {
+    private long received;
+    private long imported;
+    private long rejected;
+    private List<RowError> errors;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private long row;
+        private String message;
+    }
+}
@@ -0,0 +1,9 @@
+package com.startstepszalando.ecommerceshop.product.dto;
+
+import java.math.BigDecimal;
+
+public interface ProductNameAndPrice {
+    String getName();
+
+    BigDecimal getPrice();
+}
@@ -15,4 +15,6 @@ public class ProductRequest {
     private String description;
     private Integer stock;
     private Long adminId;
+    // Optional: the version the client last read; a stale version fails the update with 409
+    private Long version;
 }
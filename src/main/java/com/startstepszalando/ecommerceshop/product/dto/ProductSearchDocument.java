@@ -0,0 +1,12 @@
+package com.startstepszalando.ecommerceshop.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ProductSearchDocument {
+    private Long id;
+    private String name;
+    private String description;
+}
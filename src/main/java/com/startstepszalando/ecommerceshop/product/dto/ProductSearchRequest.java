@@ -0,0 +1,30 @@
+package com.startstepszalando.ecommerceshop.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchRequest {
+    private String query;
+    private List<ProductHit> products;
+    private int currentPage;
+    private int limit;
+    private long totalHits;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ProductHit {
+        private Long id;
+        private String name;
+        private String description;
+        private BigDecimal price;
+        private double score;
+    }
+}
@@ -0,0 +1,6 @@
+package com.startstepszalando.ecommerceshop.product.dto;
+
+public enum ProductSortKey {
+    ID,
+    PRICE
+}
@@ -3,17 +3,17 @@ package com.startstepszalando.ecommerceshop.product.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.startstepszalando.ecommerceshop.user.model.User;
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_price_id", columnList = "price, id")
+})
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Product {
     @JsonIgnore
     @Transient
@@ -39,4 +39,18 @@ public class Product {
     @ManyToOne
     @JoinColumn(name = "admin_id")
     private User admin;
+
+    // Bumped by every write, including the bulk stock updates, so a stale entity cannot overwrite stock
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    public Product(Long id, String name, BigDecimal price, String description, Integer stock, User admin) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.description = description;
+        this.stock = stock;
+        this.admin = admin;
+    }
 }
@@ -1,15 +1,43 @@
 package com.startstepszalando.ecommerceshop.product.repository;
 
+import com.startstepszalando.ecommerceshop.product.dto.ProductNameAndPrice;
+import com.startstepszalando.ecommerceshop.product.dto.ProductSearchDocument;
 import com.startstepszalando.ecommerceshop.product.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductStockRepository {
     @Query("SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END FROM Product p WHERE p.name = :name AND p.price = :price")
     boolean hasEntityWithNameAndPrice(@Param("name") String name, @Param("price") BigDecimal price);
+
+    List<ProductNameAndPrice> findByNameIn(Collection<String> names);
+
+    @Query("SELECT p FROM Product p ORDER BY p.id ASC")
+    List<Product> findFirstPageOrderById(Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.id > :id ORDER BY p.id ASC")
+    List<Product> findPageAfterId(@Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Product p ORDER BY p.price ASC, p.id ASC")
+    List<Product> findFirstPageOrderByPrice(Pageable pageable);
+
+    @Query("SELECT p FROM Product p WHERE p.price > :price OR (p.price = :price AND p.id > :id) ORDER BY p.price ASC, p.id ASC")
+    List<Product> findPageAfterPrice(@Param("price") BigDecimal price, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT new com.startstepszalando.ecommerceshop.product.dto.ProductSearchDocument(p.id, p.name, p.description) " +
+            "FROM Product p WHERE p.id > :id ORDER BY p.id ASC")
+    List<ProductSearchDocument> findSearchDocumentsAfterId(@Param("id") Long id, Pageable pageable);
+
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.stock = p.stock - :quantity, p.version = p.version + 1 WHERE p.id = :id AND p.stock >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
 }
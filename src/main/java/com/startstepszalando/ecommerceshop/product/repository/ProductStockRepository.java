@@ -0,0 +1,24 @@
+package com.startstepszalando.ecommerceshop.product.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface ProductStockRepository {
+    /**
+     * Decrements the stock of every product in {@code quantities} with a single guarded UPDATE.
+     * A row is only changed when its stock covers the requested quantity, so the returned row
+     * count is smaller than {@code quantities.size()} when at least one product is short.
+     */
+    int decrementStocks(Map<Long, Integer> quantities);
+
+    /**
+     * Adds the quantities back to the stock of each product, e.g. when a reserved order is cancelled.
+     */
+    int incrementStocks(Map<Long, Integer> quantities);
+
+    /**
+     * Locks the rows of the given products in id order and returns their stock, so stock can be
+     * allocated between several orders before it is decremented.
+     */
+    Map<Long, Integer> lockStocks(Collection<Long> productIds);
+}
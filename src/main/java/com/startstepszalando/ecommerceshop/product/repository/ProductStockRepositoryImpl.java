@@ -0,0 +1,81 @@
+package com.startstepszalando.ecommerceshop.product.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.*;
+
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int decrementStocks(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return 0;
+        }
+
+        // Ordered by id so concurrent reservations always lock rows in the same order.
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+        String quantityByProduct = quantityByProduct(ordered.size());
+        Query query = entityManager.createNativeQuery(
+                "UPDATE products SET stock = stock - " + quantityByProduct + ", version = version + 1" +
+                        " WHERE id IN (:ids) AND stock >= " + quantityByProduct);
+        bindQuantities(query, ordered);
+
+        return query.executeUpdate();
+    }
+
+    @Override
+    public int incrementStocks(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+        Query query = entityManager.createNativeQuery(
+                "UPDATE products SET stock = stock + " + quantityByProduct(ordered.size()) +
+                        ", version = version + 1 WHERE id IN (:ids)");
+        bindQuantities(query, ordered);
+
+        return query.executeUpdate();
+    }
+
+    @Override
+    public Map<Long, Integer> lockStocks(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+
+        List<?> rows = entityManager.createNativeQuery(
+                        "SELECT id, stock FROM products WHERE id IN (:ids) ORDER BY id FOR UPDATE")
+                .setParameter("ids", productIds)
+                .getResultList();
+
+        Map<Long, Integer> stocks = new HashMap<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            stocks.put(((Number) columns[0]).longValue(), ((Number) columns[1]).intValue());
+        }
+        return stocks;
+    }
+
+    private static String quantityByProduct(int size) {
+        StringBuilder quantityByProduct = new StringBuilder("CASE id");
+        for (int i = 0; i < size; i++) {
+            quantityByProduct.append(" WHEN :id").append(i).append(" THEN :quantity").append(i);
+        }
+        return quantityByProduct.append(" END").toString();
+    }
+
+    private static void bindQuantities(Query query, Map<Long, Integer> ordered) {
+        int i = 0;
+        for (Map.Entry<Long, Integer> entry : ordered.entrySet()) {
+            query.setParameter("id" + i, entry.getKey());
+            query.setParameter("quantity" + i, entry.getValue());
+            i++;
+        }
+        query.setParameter("ids", new ArrayList<>(ordered.keySet()));
+    }
+}
@@ -0,0 +1,69 @@
+package com.startstepszalando.ecommerceshop.product.repository;
+
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.Statement;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+/**
+ * Non-blocking reads of the products table over R2DBC, for the reactive read endpoints. Each
+ * query borrows a pooled connection for a single statement and hands it back once the rows
+ * have been read, so no thread waits on the database.
+ */
+public class ReactiveProductRepository {
+    private static final String COLUMNS = "id, name, price, description, stock, version";
+
+    private final ConnectionFactory connectionFactory;
+
+    public ReactiveProductRepository(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    public Mono<Product> findById(long id) {
+        return query("SELECT " + COLUMNS + " FROM products WHERE id = ?",
+                statement -> statement.bind(0, id), ReactiveProductRepository::toProduct)
+                .next();
+    }
+
+    public Flux<Product> findPage(long offset, int limit) {
+        return query("SELECT " + COLUMNS + " FROM products ORDER BY id LIMIT ? OFFSET ?",
+                statement -> statement.bind(0, limit).bind(1, offset), ReactiveProductRepository::toProduct);
+    }
+
+    public Mono<Long> count() {
+        return query("SELECT COUNT(*) FROM products", Function.identity(),
+                row -> row.get(0, Long.class))
+                .next();
+    }
+
+    /**
+     * Closes the connection pool, if the factory is one.
+     */
+    public void close() {
+        if (connectionFactory instanceof Closeable closeable) {
+            Mono.from(closeable.close()).block();
+        }
+    }
+
+    private <T> Flux<T> query(String sql, Function<Statement, Statement> bind, Function<Row, T> mapper) {
+        return Flux.usingWhen(connectionFactory.create(),
+                connection -> Flux.from(bind.apply(connection.createStatement(sql)).execute())
+                        .flatMap(result -> result.map((row, metadata) -> mapper.apply(row))),
+                Connection::close);
+    }
+
+    private static Product toProduct(Row row) {
+        Product product = new Product(row.get("id", Long.class), row.get("name", String.class),
+                row.get("price", BigDecimal.class), row.get("description", String.class),
+                row.get("stock", Integer.class), null);
+        product.setVersion(row.get("version", Long.class));
+        return product;
+    }
+}
@@ -0,0 +1,224 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory stock quota for hot products, so their reservations do not all queue on one
+ * {@code products} row. Quota is claimed from the row with a guarded decrement before it is
+ * handed out, which is what keeps the total of all reservations, across every instance, within
+ * the persisted stock: a unit is either still in the row or sits in exactly one quota.
+ * <p>
+ * Each product's quota is split over striped counters on separate cache lines. A reservation
+ * takes the whole quantity from one stripe with a CAS; when no stripe can cover it the caller
+ * falls back to the row. A background rebalance tops the stripes up and returns quota once the
+ * row runs low, so the last units of a product are always sold through the exact row path.
+ * Each rebalance covers all hot products with one lock and at most two batched updates.
+ * <p>
+ * Quota held by an instance that crashes is not returned, so the row undercounts the stock
+ * until it is corrected; it never overcounts.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.products.hot.enabled", havingValue = "true")
+public class HotStockQuota {
+    // 16 longs, 128 bytes, keep neighbouring stripes off each other's cache line
+    private static final int PADDING = 16;
+
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, AtomicLongArray> quotas = new HashMap<>();
+    private final int stripes;
+    private final int quotaPerStripe;
+    private final int lowStock;
+    private final Counter hits;
+    private final Counter misses;
+
+    public HotStockQuota(ProductRepository productRepository,
+                         ProductCache productCache,
+                         PlatformTransactionManager transactionManager,
+                         ObjectProvider<MeterRegistry> meterRegistry,
+                         @Value("${app.products.hot.ids:}") List<Long> productIds,
+                         @Value("${app.products.hot.stripes:8}") int stripes,
+                         @Value("${app.products.hot.quota-per-stripe:20}") int quotaPerStripe,
+                         @Value("${app.products.hot.low-stock:100}") int lowStock) {
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stripes = stripes;
+        this.quotaPerStripe = quotaPerStripe;
+        this.lowStock = lowStock;
+        productIds.forEach(id -> quotas.put(id, new AtomicLongArray(stripes * PADDING)));
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.hits = registry == null ? null : Counter.builder("products.hot.reservations")
+                .description("Hot product reservations served from in-memory quota or passed on to the row")
+                .tag("outcome", "quota").register(registry);
+        this.misses = registry == null ? null : Counter.builder("products.hot.reservations")
+                .description("Hot product reservations served from in-memory quota or passed on to the row")
+                .tag("outcome", "row").register(registry);
+    }
+
+    public boolean isHot(Long productId) {
+        return quotas.containsKey(productId);
+    }
+
+    /**
+     * Takes {@code quantity} from the product's quota. Returns false when the product is not hot
+     * or no stripe holds enough; the caller then reserves from the row instead. Inside a
+     * transaction the units go back to the quota if it rolls back.
+     */
+    public boolean tryReserve(Long productId, int quantity) {
+        AtomicLongArray quota = quotas.get(productId);
+        if (quota == null) {
+            return false;
+        }
+
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int slot = ((start + i) % stripes) * PADDING;
+            long available = quota.get(slot);
+            while (available >= quantity) {
+                if (quota.compareAndSet(slot, available, available - quantity)) {
+                    releaseOnRollback(productId, quantity);
+                    count(hits);
+                    return true;
+                }
+                available = quota.get(slot);
+            }
+        }
+        count(misses);
+        return false;
+    }
+
+    /**
+     * Tops up every stripe that is below its quota while the row stays above {@code low-stock},
+     * and hands all quota back to the row once it drops below. Quota only becomes available
+     * after the claim has committed.
+     */
+    @Scheduled(fixedDelayString = "${app.products.hot.rebalance-interval:PT0.2S}")
+    public void rebalance() {
+        if (quotas.isEmpty()) {
+            return;
+        }
+
+        Map<Long, long[]> topUps = new HashMap<>();
+        Map<Long, Integer> returned = new HashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, Integer> stocks = productRepository.lockStocks(quotas.keySet());
+                Map<Long, Integer> claims = new HashMap<>();
+                quotas.forEach((productId, quota) -> {
+                    int stock = stocks.getOrDefault(productId, 0);
+                    if (stock < lowStock) {
+                        long drained = drain(quota);
+                        if (drained > 0 && stocks.containsKey(productId)) {
+                            returned.put(productId, (int) drained);
+                        }
+                        return;
+                    }
+
+                    long[] topUp = new long[stripes];
+                    long claimed = 0;
+                    for (int i = 0; i < stripes; i++) {
+                        long deficit = Math.min(quotaPerStripe - quota.get(i * PADDING), stock - claimed - lowStock);
+                        if (deficit > 0) {
+                            topUp[i] = deficit;
+                            claimed += deficit;
+                        }
+                    }
+                    if (claimed > 0) {
+                        topUps.put(productId, topUp);
+                        claims.put(productId, (int) claimed);
+                    }
+                });
+
+                productRepository.decrementStocks(claims);
+                productRepository.incrementStocks(returned);
+                productCache.evictAll(stocks.keySet());
+            });
+        } catch (RuntimeException e) {
+            // The row still holds what was drained, so it goes back into the quota
+            returned.forEach((productId, quantity) -> release(productId, quantity));
+            log.warn("Hot stock rebalance failed: {}", e.getMessage());
+            return;
+        }
+
+        topUps.forEach((productId, topUp) -> {
+            AtomicLongArray quota = quotas.get(productId);
+            for (int i = 0; i < stripes; i++) {
+                if (topUp[i] > 0) {
+                    quota.addAndGet(i * PADDING, topUp[i]);
+                }
+            }
+        });
+    }
+
+    /**
+     * Returns all quota to the rows, so a clean shutdown leaves the persisted stock exact.
+     */
+    @PreDestroy
+    public void returnAll() {
+        Map<Long, Integer> returned = new HashMap<>();
+        quotas.forEach((productId, quota) -> {
+            long drained = drain(quota);
+            if (drained > 0) {
+                returned.put(productId, (int) drained);
+            }
+        });
+        if (!returned.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> productRepository.incrementStocks(returned));
+            productCache.evictAll(returned.keySet());
+        }
+    }
+
+    private void release(Long productId, int quantity) {
+        quotas.get(productId).addAndGet(ThreadLocalRandom.current().nextInt(stripes) * PADDING, quantity);
+    }
+
+    private void releaseOnRollback(Long productId, int quantity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        release(productId, quantity);
+                    }
+                }
+            });
+        }
+    }
+
+    private long drain(AtomicLongArray quota) {
+        long drained = 0;
+        for (int i = 0; i < stripes; i++) {
+            drained += quota.getAndSet(i * PADDING, 0);
+        }
+        return drained;
+    }
+
+    private static void count(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
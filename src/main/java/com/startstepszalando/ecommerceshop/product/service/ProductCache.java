@@ -0,0 +1,96 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache in front of {@code ProductRepository.findById}. Hits, misses and evictions
+ * are published as the {@code cache.*} metrics tagged {@code cache=products}.
+ * <p>
+ * Every write to a product, including stock decrements, evicts its entry. The eviction is
+ * repeated after the writing transaction commits, so a concurrent read cannot put the
+ * pre-commit row back and serve stale stock until the TTL runs out.
+ * <p>
+ * Entries are immutable snapshots of the product's columns, and every read returns a new,
+ * detached {@link Product}, so a caller that modifies its copy cannot change what other
+ * threads are served.
+ */
+@Component
+public class ProductCache {
+    private final Cache<Long, Snapshot> cache;
+
+    public ProductCache(@Value("${app.products.cache.max-size:50000}") long maxSize,
+                        @Value("${app.products.cache.ttl:PT10M}") Duration ttl,
+                        ObjectProvider<MeterRegistry> meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache, "products"));
+    }
+
+    public Optional<Product> get(Long id, Function<Long, Optional<Product>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).map(Snapshot::of).orElse(null)))
+                .map(Snapshot::toProduct);
+    }
+
+    /**
+     * Cached entry only, never loads. Used by the reactive reads, which must not block on the
+     * database; the blocking reads remain the only ones that fill the cache.
+     */
+    public Optional<Product> getIfPresent(Long id) {
+        return Optional.ofNullable(cache.getIfPresent(id)).map(Snapshot::toProduct);
+    }
+
+    public void evict(Long id) {
+        evictAll(List.of(id));
+    }
+
+    public void evictAll(Collection<Long> productIds) {
+        List<Long> ids = List.copyOf(productIds);
+        cache.invalidateAll(ids);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll(ids);
+                }
+            });
+        }
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private record Snapshot(Long id, String name, BigDecimal price, String description, Integer stock, Long version) {
+        static Snapshot of(Product product) {
+            return new Snapshot(product.getId(), product.getName(), product.getPrice(),
+                    product.getDescription(), product.getStock(), product.getVersion());
+        }
+
+        Product toProduct() {
+            Product product = new Product(id, name, price, description, stock, null);
+            product.setVersion(version);
+            return product;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.startstepszalando.ecommerceshop.product.dto.ProductExportRow;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the catalog as NDJSON straight from a database cursor. Rows are read as projections,
+ * so nothing piles up in the persistence context, and output is flushed whenever the
+ * generator's buffer fills. Memory use is therefore the same for any catalog size.
+ * <p>
+ * Only this query streams. On MySQL the default fetch size of {@link Integer#MIN_VALUE} makes
+ * Connector/J hand rows over one at a time, without turning on cursor fetching, and with it
+ * server-side prepared statements, for every other query of the datasource.
+ */
+@Service
+public class ProductExportService {
+    private static final String EXPORT_QUERY = "SELECT new com.startstepszalando.ecommerceshop.product.dto.ProductExportRow(" +
+            "p.id, p.name, p.price, p.description, p.stock) FROM Product p ORDER BY p.id ASC";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectWriter rowWriter;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public ProductExportService(ObjectMapper objectMapper,
+                                @Value("${app.products.export.fetch-size:1000}") int fetchSize) {
+        this.objectMapper = objectMapper;
+        this.fetchSize = fetchSize;
+        this.rowWriter = objectMapper.writerFor(ProductExportRow.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Transactional(readOnly = true)
+    public long exportProducts(OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+             Stream<ProductExportRow> rows = streamAll()) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            long exported = 0;
+            Iterator<ProductExportRow> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                rowWriter.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                exported++;
+            }
+            return exported;
+        }
+    }
+
+    private Stream<ProductExportRow> streamAll() {
+        return entityManager.createQuery(EXPORT_QUERY, ProductExportRow.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
@@ -0,0 +1,207 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.startstepszalando.ecommerceshop.exception.product.InvalidImportFileException;
+import com.startstepszalando.ecommerceshop.product.dto.ProductImportFormat;
+import com.startstepszalando.ecommerceshop.product.dto.ProductRequest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads an import body one record at a time, so the whole file is never held in memory.
+ * A record that cannot be parsed is returned with an error instead of aborting the import.
+ */
+abstract class ProductImportReader {
+    protected final BufferedReader reader;
+    protected long lineNumber;
+
+    private ProductImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    static ProductImportReader of(ProductImportFormat format, BufferedReader reader, ObjectMapper objectMapper)
+            throws IOException, InvalidImportFileException {
+        return format == ProductImportFormat.CSV
+                ? new Csv(reader)
+                : new NdJson(reader, objectMapper);
+    }
+
+    /**
+     * Returns the next record, or {@code null} at the end of the body. Throws
+     * {@link InvalidImportFileException} when the rest of the body cannot be split into records.
+     */
+    abstract Row next() throws IOException, InvalidImportFileException;
+
+    record Row(long number, ProductRequest product, String error) {
+        static Row valid(long number, ProductRequest product) {
+            return new Row(number, product, null);
+        }
+
+        static Row invalid(long number, String error) {
+            return new Row(number, null, error);
+        }
+    }
+
+    private static final class NdJson extends ProductImportReader {
+        private final ObjectMapper objectMapper;
+
+        private NdJson(BufferedReader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        Row next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && line.isBlank());
+
+            if (line == null) {
+                return null;
+            }
+
+            try {
+                return Row.valid(lineNumber, objectMapper.readValue(line, ProductRequest.class));
+            } catch (JsonProcessingException e) {
+                return Row.invalid(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * RFC 4180 CSV with a header row naming the {@code name}, {@code price}, {@code description}
+     * and {@code stock} columns in any order. Quoted fields may contain commas, doubled quotes
+     * and line breaks. A record may span at most {@link #MAX_RECORD_LENGTH} characters, so a
+     * quote that is never closed cannot pull the rest of the body into one record.
+     */
+    private static final class Csv extends ProductImportReader {
+        private static final List<String> COLUMNS = List.of("name", "price", "description", "stock");
+        // Room for a description filling a MySQL TEXT column plus the other fields
+        private static final int MAX_RECORD_LENGTH = 128 * 1024;
+
+        private final Map<String, Integer> columnIndex = new HashMap<>();
+
+        private Csv(BufferedReader reader) throws IOException, InvalidImportFileException {
+            super(reader);
+            List<String> header = readRecord();
+            if (header == null) {
+                throw new InvalidImportFileException("CSV import is empty, expected a header row");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columnIndex.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            List<String> missing = COLUMNS.stream().filter(column -> !columnIndex.containsKey(column)).toList();
+            if (!missing.isEmpty()) {
+                throw new InvalidImportFileException("CSV header is missing the columns " + String.join(", ", missing));
+            }
+        }
+
+        @Override
+        Row next() throws IOException, InvalidImportFileException {
+            List<String> fields;
+            long recordStart;
+            do {
+                recordStart = lineNumber + 1;
+                fields = readRecord();
+            } while (fields != null && fields.size() == 1 && fields.get(0).isBlank());
+
+            if (fields == null) {
+                return null;
+            }
+            if (fields.size() != columnIndex.size()) {
+                return Row.invalid(recordStart,
+                        String.format("Expected %d fields but found %d", columnIndex.size(), fields.size()));
+            }
+
+            try {
+                ProductRequest product = new ProductRequest();
+                product.setName(field(fields, "name"));
+                product.setPrice(new BigDecimal(field(fields, "price").trim()));
+                product.setDescription(field(fields, "description"));
+                product.setStock(Integer.valueOf(field(fields, "stock").trim()));
+                return Row.valid(recordStart, product);
+            } catch (NumberFormatException e) {
+                return Row.invalid(recordStart, "Price and stock must be numbers");
+            }
+        }
+
+        private String field(List<String> fields, String column) {
+            return fields.get(columnIndex.get(column));
+        }
+
+        private List<String> readRecord() throws IOException, InvalidImportFileException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+            long recordStart = lineNumber;
+            long recordLength = line.length();
+            checkLength(recordStart, recordLength);
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // A quoted field continues on the next line
+                    String continuation = reader.readLine();
+                    if (continuation == null) {
+                        throw new InvalidImportFileException(String.format(
+                                "CSV record starting on line %d has a quoted field that is never closed", recordStart));
+                    }
+                    lineNumber++;
+                    recordLength += continuation.length() + 1;
+                    checkLength(recordStart, recordLength);
+                    field.append('\n');
+                    line = continuation;
+                    i = 0;
+                    continue;
+                }
+
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c == '"' && i < line.length() && line.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private static void checkLength(long recordStart, long recordLength) throws InvalidImportFileException {
+            if (recordLength > MAX_RECORD_LENGTH) {
+                throw new InvalidImportFileException(String.format(
+                        "CSV record starting on line %d is longer than %d characters, check for an unclosed quote",
+                        recordStart, MAX_RECORD_LENGTH));
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.startstepszalando.ecommerceshop.exception.product.InvalidImportFileException;
+import com.startstepszalando.ecommerceshop.exception.user.UserNotFoundException;
+import com.startstepszalando.ecommerceshop.product.dto.ProductImportFormat;
+import com.startstepszalando.ecommerceshop.product.dto.ProductImportRequest;
+import com.startstepszalando.ecommerceshop.product.dto.ProductRequest;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Imports a product feed in batches. Each batch costs one duplicate lookup by name and one
+ * JDBC batch insert, committed on its own, so a failing batch does not undo earlier ones.
+ * Because earlier batches are committed before the next lookup, the lookup also catches
+ * duplicates between batches of the same file.
+ */
+@Service
+public class ProductImportService {
+    private static final String INSERT_PRODUCT =
+            "INSERT INTO products (name, price, description, stock, admin_id, version) VALUES (?, ?, ?, ?, ?, 0)";
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999.99");
+
+    private final ProductRepository productRepository;
+    private final UserService userService;
+    private final ProductSearchIndex searchIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public ProductImportService(ProductRepository productRepository,
+                                UserService userService,
+                                ProductSearchIndex searchIndex,
+                                JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${app.products.import.batch-size:1000}") int batchSize,
+                                @Value("${app.products.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.productRepository = productRepository;
+        this.userService = userService;
+        this.searchIndex = searchIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    public ProductImportRequest importProducts(InputStream body, ProductImportFormat format, Long adminId)
+            throws IOException, InvalidImportFileException, AccessDeniedException {
+        User admin = userService.findById(adminId)
+                .orElseThrow(() -> new UserNotFoundException("Invalid userId: user not found"));
+        if (admin.getRole() != Role.ADMIN) {
+            throw new AccessDeniedException("Access denied: You don't have permissions for this action");
+        }
+
+        long started = System.nanoTime();
+        ImportProgress progress = new ImportProgress();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        ProductImportReader rows = ProductImportReader.of(format, reader, objectMapper);
+
+        List<ProductImportReader.Row> batch = new ArrayList<>(batchSize);
+        ProductImportReader.Row row;
+        while ((row = rows.next()) != null) {
+            progress.received++;
+            String error = row.error() != null ? row.error() : validate(row.product());
+            if (error != null) {
+                progress.reject(row.number(), error);
+                continue;
+            }
+
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                writeBatch(batch, admin, progress);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, admin, progress);
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        double rowsPerSecond = elapsedNanos == 0 ? 0 : progress.received * 1_000_000_000d / elapsedNanos;
+        return new ProductImportRequest(progress.received, progress.imported, progress.rejected,
+                progress.errors, elapsedNanos / 1_000_000, Math.round(rowsPerSecond * 10) / 10d);
+    }
+
+    private void writeBatch(List<ProductImportReader.Row> batch, User admin, ImportProgress progress) {
+        Set<String> names = new HashSet<>();
+        batch.forEach(row -> names.add(row.product().getName()));
+
+        Set<String> existingKeys = new HashSet<>();
+        productRepository.findByNameIn(names)
+                .forEach(existing -> existingKeys.add(key(existing.getName(), existing.getPrice())));
+
+        List<ProductImportReader.Row> accepted = new ArrayList<>(batch.size());
+        for (ProductImportReader.Row row : batch) {
+            ProductRequest product = row.product();
+            if (!existingKeys.add(key(product.getName(), product.getPrice()))) {
+                progress.reject(row.number(), String.format("Product with name %s and price %.2f already exists",
+                        product.getName(), product.getPrice()));
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        List<ProductRequest> products = accepted.stream().map(ProductImportReader.Row::product).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(products, admin));
+            progress.imported += products.size();
+        } catch (DataAccessException e) {
+            String error = "Batch insert failed: " + e.getMostSpecificCause().getMessage();
+            accepted.forEach(row -> progress.reject(row.number(), error));
+        }
+    }
+
+    private void insert(List<ProductRequest> products, User admin) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_PRODUCT, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement statement, int i) throws SQLException {
+                        ProductRequest product = products.get(i);
+                        statement.setString(1, product.getName());
+                        statement.setBigDecimal(2, product.getPrice());
+                        statement.setString(3, product.getDescription());
+                        statement.setInt(4, product.getStock());
+                        statement.setLong(5, admin.getId());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return products.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < keys.size(); i++) {
+            Long id = ((Number) keys.get(i).values().iterator().next()).longValue();
+            ProductRequest product = products.get(i);
+            searchIndex.indexAfterCommit(id, product.getName(), product.getDescription());
+        }
+    }
+
+    private String validate(ProductRequest product) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "Product name cannot be empty.";
+        }
+        if (product.getName().length() > 255) {
+            return "Product name cannot be longer than 255 characters.";
+        }
+        if (product.getDescription() == null || product.getDescription().isBlank()) {
+            return "Product description cannot be empty.";
+        }
+        if (product.getPrice() == null || product.getPrice().signum() < 0) {
+            return "Price must be a positive number.";
+        }
+        if (product.getPrice().compareTo(MAX_PRICE) > 0 || product.getPrice().stripTrailingZeros().scale() > 2) {
+            return "Price must be at most 99999.99 with two decimal places.";
+        }
+        if (product.getStock() == null || product.getStock() <= 0) {
+            return "Insufficient stock for the product";
+        }
+        return null;
+    }
+
+    /**
+     * Compares names the way the column's collation does, ignoring letter case and trailing
+     * spaces, so the import rejects the same duplicates as a single create.
+     */
+    private static String key(String name, BigDecimal price) {
+        return name.stripTrailing().toLowerCase(Locale.ROOT) + '\u0000'
+                + price.setScale(2, RoundingMode.UNNECESSARY).toPlainString();
+    }
+
+    private final class ImportProgress {
+        private long received;
+        private long imported;
+        private long rejected;
+        private final List<ProductImportRequest.RowError> errors = new ArrayList<>();
+
+        void reject(long row, String message) {
+            rejected++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportRequest.RowError(row, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index over product names and descriptions.
+ * <p>
+ * Every indexed product gets a dense ordinal, and ordinals only ever grow, so each posting list
+ * stays sorted and a multi-term query is answered by intersecting primitive arrays. Updates
+ * retire the old ordinal and append a new one; retired ordinals are dropped by a compaction
+ * once they make up a quarter of the index.
+ */
+@Component
+public class ProductSearchIndex {
+    private static final float NAME_BOOST = 3.0f;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> ordinalByProductId = new HashMap<>();
+    private long[] productIdByOrdinal = new long[1024];
+    private BitSet retired = new BitSet();
+    private int nextOrdinal;
+
+    public void index(Long productId, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            addDocument(productId, name, description);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes a product unless it is already present. Used by the startup build so it never
+     * overwrites a newer version indexed by a concurrent write.
+     */
+    public void indexIfAbsent(Long productId, String name, String description) {
+        lock.writeLock().lock();
+        try {
+            if (!ordinalByProductId.containsKey(productId)) {
+                addDocument(productId, name, description);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalByProductId.remove(productId);
+            if (ordinal != null) {
+                retire(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void indexAfterCommit(Long productId, String name, String description) {
+        runAfterCommit(() -> index(productId, name, description));
+    }
+
+    public void removeAfterCommit(Long productId) {
+        runAfterCommit(() -> remove(productId));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalByProductId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the products that contain every term of the query, best match first.
+     */
+    public Result search(String query, int page, int size) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty() || size <= 0 || page < 0) {
+            return new Result(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            List<Postings> lists = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    return new Result(List.of(), 0);
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(list -> list.size));
+
+            int documents = Math.max(1, ordinalByProductId.size());
+            double[] idf = new double[lists.size()];
+            for (int i = 0; i < lists.size(); i++) {
+                idf[i] = Math.log(1 + (double) documents / lists.get(i).size);
+            }
+
+            int wanted = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+            PriorityQueue<Hit> top = new PriorityQueue<>(Comparator.comparingDouble(Hit::score)
+                    .thenComparing(Hit::productId, Comparator.reverseOrder()));
+            int[] cursors = new int[lists.size()];
+            long total = 0;
+
+            Postings shortest = lists.get(0);
+            for (int i = 0; i < shortest.size; i++) {
+                int ordinal = shortest.ordinals[i];
+                if (retired.get(ordinal)) {
+                    continue;
+                }
+
+                double score = shortest.weights[i] * idf[0];
+                boolean matchesAll = true;
+                for (int l = 1; l < lists.size(); l++) {
+                    Postings other = lists.get(l);
+                    int position = other.advance(cursors[l], ordinal);
+                    cursors[l] = position;
+                    if (position >= other.size || other.ordinals[position] != ordinal) {
+                        matchesAll = false;
+                        break;
+                    }
+                    score += other.weights[position] * idf[l];
+                }
+
+                if (matchesAll) {
+                    total++;
+                    top.offer(new Hit(productIdByOrdinal[ordinal], score));
+                    if (top.size() > wanted) {
+                        top.poll();
+                    }
+                }
+            }
+
+            List<Hit> ranked = new ArrayList<>(top);
+            ranked.sort(Comparator.comparingDouble(Hit::score).reversed()
+                    .thenComparing(Hit::productId));
+            int from = (int) Math.min((long) page * size, ranked.size());
+            return new Result(List.copyOf(ranked.subList(from, ranked.size())), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    private void addDocument(Long productId, String name, String description) {
+        Integer previous = ordinalByProductId.remove(productId);
+        if (previous != null) {
+            retire(previous);
+        }
+
+        Map<String, Float> frequencies = new HashMap<>();
+        List<String> nameTokens = tokenize(name);
+        List<String> descriptionTokens = tokenize(description);
+        nameTokens.forEach(token -> frequencies.merge(token, NAME_BOOST, Float::sum));
+        descriptionTokens.forEach(token -> frequencies.merge(token, 1f, Float::sum));
+        if (frequencies.isEmpty()) {
+            return;
+        }
+
+        int ordinal = nextOrdinal++;
+        if (ordinal == productIdByOrdinal.length) {
+            productIdByOrdinal = Arrays.copyOf(productIdByOrdinal, ordinal * 2);
+        }
+        productIdByOrdinal[ordinal] = productId;
+        ordinalByProductId.put(productId, ordinal);
+
+        float lengthNorm = (float) (1 / Math.sqrt(nameTokens.size() + descriptionTokens.size()));
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, key -> new Postings()).add(ordinal, frequency * lengthNorm));
+    }
+
+    private void retire(int ordinal) {
+        retired.set(ordinal);
+        int retiredCount = retired.cardinality();
+        if (retiredCount > 1024 && retiredCount * 4 > nextOrdinal) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        int[] remap = new int[nextOrdinal];
+        long[] productIds = new long[Math.max(1024, ordinalByProductId.size() * 2)];
+        int live = 0;
+        for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+            if (retired.get(ordinal)) {
+                remap[ordinal] = -1;
+            } else {
+                remap[ordinal] = live;
+                productIds[live] = productIdByOrdinal[ordinal];
+                ordinalByProductId.put(productIdByOrdinal[ordinal], live);
+                live++;
+            }
+        }
+
+        postings.values().removeIf(list -> list.compact(remap) == 0);
+        productIdByOrdinal = productIds;
+        retired = new BitSet();
+        nextOrdinal = live;
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public record Hit(Long productId, double score) {
+    }
+
+    public record Result(List<Hit> hits, long total) {
+    }
+
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void add(int ordinal, float weight) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ordinals[size] = ordinal;
+            weights[size] = weight;
+            size++;
+        }
+
+        /**
+         * Returns the first position at or after {@code from} whose ordinal is not smaller than
+         * {@code ordinal}, galloping ahead before the binary search.
+         */
+        int advance(int from, int ordinal) {
+            int bound = 1;
+            int low = from;
+            while (low + bound < size && ordinals[low + bound] < ordinal) {
+                low += bound;
+                bound <<= 1;
+            }
+            int high = Math.min(low + bound + 1, size);
+            int position = Arrays.binarySearch(ordinals, low, high, ordinal);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        int compact(int[] remap) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = remap[ordinals[i]];
+                if (ordinal >= 0) {
+                    ordinals[kept] = ordinal;
+                    weights[kept] = weights[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return kept;
+        }
+    }
+}
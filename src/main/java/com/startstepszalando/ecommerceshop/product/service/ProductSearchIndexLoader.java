@@ -0,0 +1,50 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.startstepszalando.ecommerceshop.product.dto.ProductSearchDocument;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Fills the {@link ProductSearchIndex} once the application is up. Products are read in
+ * id order as (id, name, description) projections, a batch at a time, so the build never
+ * holds more than one batch of rows or touches the admin association.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndexLoader {
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex searchIndex;
+    private final int batchSize;
+
+    public ProductSearchIndexLoader(ProductRepository productRepository,
+                                    ProductSearchIndex searchIndex,
+                                    @Value("${app.products.search.build-batch-size:1000}") int batchSize) {
+        this.productRepository = productRepository;
+        this.searchIndex = searchIndex;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        long started = System.nanoTime();
+        long lastId = 0;
+        List<ProductSearchDocument> batch;
+        do {
+            batch = productRepository.findSearchDocumentsAfterId(lastId, PageRequest.of(0, batchSize));
+            for (ProductSearchDocument document : batch) {
+                searchIndex.indexIfAbsent(document.getId(), document.getName(), document.getDescription());
+                lastId = document.getId();
+            }
+        } while (batch.size() == batchSize);
+
+        log.info("Indexed {} products for search in {} ms",
+                searchIndex.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+}
@@ -2,35 +2,74 @@ package com.startstepszalando.ecommerceshop.product.service;
 
 import com.startstepszalando.ecommerceshop.exception.product.DuplicateProductException;
 import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.exception.product.InvalidCursorException;
 import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
+import com.startstepszalando.ecommerceshop.exception.product.ProductVersionConflictException;
 import com.startstepszalando.ecommerceshop.exception.user.UserNotFoundException;
+import com.startstepszalando.ecommerceshop.product.dto.ProductCursor;
+import com.startstepszalando.ecommerceshop.product.dto.ProductCursorPaginationRequest;
 import com.startstepszalando.ecommerceshop.product.dto.ProductPaginationRequest;
+import com.startstepszalando.ecommerceshop.product.dto.ProductSearchRequest;
+import com.startstepszalando.ecommerceshop.product.dto.ProductSortKey;
 import com.startstepszalando.ecommerceshop.product.model.Product;
 import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
 import com.startstepszalando.ecommerceshop.user.model.Role;
 import com.startstepszalando.ecommerceshop.user.model.User;
 import com.startstepszalando.ecommerceshop.user.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.nio.file.AccessDeniedException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ProductService {
     private final ProductRepository productRepository;
     private final UserService userService;
+    private final ProductCache productCache;
+    private final ProductSearchIndex searchIndex;
+    private final StockRetry stockRetry;
+    private final HotStockQuota hotStockQuota;
 
     @Autowired
-    public ProductService(ProductRepository repository, UserService userService) {
+    public ProductService(ProductRepository repository, UserService userService, ProductCache productCache,
+                          ProductSearchIndex searchIndex, PlatformTransactionManager transactionManager,
+                          ObjectProvider<MeterRegistry> meterRegistry,
+                          ObjectProvider<HotStockQuota> hotStockQuota,
+                          @Value("${app.products.stock.retry.max-attempts:5}") int maxAttempts,
+                          @Value("${app.products.stock.retry.base-delay:PT0.005S}") Duration baseDelay,
+                          @Value("${app.products.stock.retry.max-delay:PT0.1S}") Duration maxDelay) {
         this.productRepository = repository;
         this.userService = userService;
+        this.productCache = productCache;
+        this.searchIndex = searchIndex;
+        this.stockRetry = new StockRetry(new TransactionTemplate(transactionManager), maxAttempts, baseDelay, maxDelay,
+                meterRegistry.getIfAvailable());
+        this.hotStockQuota = hotStockQuota.getIfAvailable();
     }
 
     public Product getProductById(long id) throws ProductNotFoundException {
+        return productCache.get(id, productRepository::findById)
+                .orElseThrow(() -> new ProductNotFoundException(String.format("Product with id %d is not found", id)));
+    }
+
+    private Product findProductForUpdate(long id) throws ProductNotFoundException {
         return productRepository.findById(id).orElseThrow(() -> new ProductNotFoundException(String.format("Product with id %d is not found", id)));
     }
 
@@ -47,6 +86,64 @@ public class ProductService {
         return products;
     }
 
+    /**
+     * Keyset pagination: reads the page that follows {@code after} with a seek predicate on
+     * (sort key, id), so the cost of a page does not depend on how deep the client has paged.
+     * One extra row is fetched to know whether a next page exists, and no total count is run.
+     */
+    public ProductCursorPaginationRequest getProductsAfter(String after, int size, ProductSortKey sortKey)
+            throws InvalidCursorException {
+        ProductCursor cursor = ProductCursor.decode(after, sortKey);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Product> products;
+        if (sortKey == ProductSortKey.PRICE) {
+            products = cursor.isFirstPage()
+                    ? productRepository.findFirstPageOrderByPrice(limit)
+                    : productRepository.findPageAfterPrice(cursor.getPrice(), cursor.getId(), limit);
+        } else {
+            products = cursor.isFirstPage()
+                    ? productRepository.findFirstPageOrderById(limit)
+                    : productRepository.findPageAfterId(cursor.getId(), limit);
+        }
+
+        String nextCursor = null;
+        if (products.size() > size) {
+            products = products.subList(0, size);
+            Product last = products.get(size - 1);
+            nextCursor = new ProductCursor(sortKey, last.getPrice(), last.getId()).encode();
+        }
+
+        List<ProductPaginationRequest.ProductRequest> productRequests = products.stream()
+                .map(this::convertToProductRequest)
+                .toList();
+
+        return new ProductCursorPaginationRequest(productRequests, size, sortKey.name(), nextCursor);
+    }
+
+    /**
+     * Ranks products against the in-memory search index and loads only the rows of the
+     * requested page. A product deleted after the index was read is left out of the page.
+     */
+    public ProductSearchRequest searchProducts(String query, int page, int size) {
+        ProductSearchIndex.Result result = searchIndex.search(query, page, size);
+
+        List<Long> ids = result.hits().stream().map(ProductSearchIndex.Hit::productId).toList();
+        Map<Long, Product> products = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<ProductSearchRequest.ProductHit> hits = result.hits().stream()
+                .map(hit -> {
+                    Product product = products.get(hit.productId());
+                    return product == null ? null : new ProductSearchRequest.ProductHit(product.getId(),
+                            product.getName(), product.getDescription(), product.getPrice(), hit.score());
+                })
+                .filter(Objects::nonNull)
+                .toList();
+
+        return new ProductSearchRequest(query, hits, page, size, result.total());
+    }
+
     public Product createProduct(Product product, Long adminId) throws
             DuplicateProductException, InsufficientStockException, AccessDeniedException {
         if (productRepository.hasEntityWithNameAndPrice(product.getName(), product.getPrice())) {
@@ -65,10 +162,17 @@ public class ProductService {
         }
         product.setAdmin(admin);
 
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        searchIndex.indexAfterCommit(savedProduct.getId(), savedProduct.getName(), savedProduct.getDescription());
+        return savedProduct;
     }
 
-    @Transactional
+    /**
+     * Copies the given fields onto the stored product. When {@code product} carries a version, the
+     * update only applies to that version of the product and fails with
+     * {@link ProductVersionConflictException} otherwise. Without one, an update that races a stock
+     * change is retried on the fresh row.
+     */
     public Product updateProduct(long id, Product product, Long adminId) throws
             ProductNotFoundException, InsufficientStockException, AccessDeniedException {
         User admin = userService.findById(adminId)
@@ -78,21 +182,38 @@ public class ProductService {
             throw new AccessDeniedException("Access denied: You don't have permissions for this action");
         }
 
-        Product productToUpdate = getProductById(id);
-
         if (product.getStock() <= 0) {
             throw new InsufficientStockException("Insufficient stock for the product");
         }
 
-        productToUpdate.setAdmin(admin);
-        product.setId(productToUpdate.getId());
+        Product updatedProduct = stockRetry.execute("updateProduct", () -> productRepository.findById(id)
+                .map(productToUpdate -> {
+                    if (product.getVersion() != null && !product.getVersion().equals(productToUpdate.getVersion())) {
+                        throw new ProductVersionConflictException(String.format(
+                                "Product with id %d was changed, current version is %d", id, productToUpdate.getVersion()));
+                    }
+                    productToUpdate.setName(product.getName());
+                    productToUpdate.setPrice(product.getPrice());
+                    productToUpdate.setDescription(product.getDescription());
+                    productToUpdate.setStock(product.getStock());
+                    productToUpdate.setAdmin(admin);
+                    productCache.evict(id);
+                    return productRepository.saveAndFlush(productToUpdate);
+                })
+                .orElse(null));
+        if (updatedProduct == null) {
+            throw new ProductNotFoundException(String.format("Product with id %d is not found", id));
+        }
 
-        return productRepository.save(product);
+        searchIndex.indexAfterCommit(updatedProduct.getId(), updatedProduct.getName(), updatedProduct.getDescription());
+        return updatedProduct;
     }
 
     @Transactional
     public boolean deleteProduct(long id) throws ProductNotFoundException {
-        productRepository.delete(getProductById(id));
+        productRepository.delete(findProductForUpdate(id));
+        productCache.evict(id);
+        searchIndex.removeAfterCommit(id);
         return true;
     }
 
@@ -105,17 +226,73 @@ public class ProductService {
         return productRequest;
     }
 
-    @Transactional
+    /**
+     * Decrements stock with a guarded atomic update, retried when the row lock cannot be taken in time.
+     * Hot products are served from their in-memory quota first.
+     */
     public void updateProductStock(Long productId, int quantity) throws ProductNotFoundException, InsufficientStockException {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException("Product with ID " + productId + " not found"));
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be a positive number");
+        }
+        if (hotStockQuota != null && hotStockQuota.tryReserve(productId, quantity)) {
+            return;
+        }
+
+        int updated = stockRetry.execute("updateProductStock", () -> {
+            productCache.evict(productId);
+            return productRepository.decrementStock(productId, quantity);
+        });
+        if (updated == 0) {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new ProductNotFoundException("Product with ID " + productId + " not found"));
 
-        if (product.getStock() < quantity) {
-            throw new InsufficientStockException("Insufficient stock for product: " + product.getName());
+            throw new InsufficientStockException("Insufficient stock for product: " + product.getName(), product);
+        }
+    }
+
+    /**
+     * Reserves stock for several products in one round trip. Either every product is
+     * decremented or the surrounding transaction is rolled back. Hot products covered by
+     * their in-memory quota skip the update.
+     */
+    @Transactional(rollbackOn = InsufficientStockException.class)
+    public void reserveStock(Map<Long, Integer> quantities) throws InsufficientStockException {
+        if (quantities.values().stream().anyMatch(quantity -> quantity == null || quantity <= 0)) {
+            throw new IllegalArgumentException("Quantity must be a positive number");
         }
 
-        product.setStock(product.getStock() - quantity);
-        productRepository.save(product);
+        Map<Long, Integer> fromRows = quantities;
+        if (hotStockQuota != null) {
+            fromRows = new HashMap<>(quantities);
+            fromRows.entrySet().removeIf(line -> hotStockQuota.tryReserve(line.getKey(), line.getValue()));
+            if (fromRows.isEmpty()) {
+                return;
+            }
+        }
+
+        productCache.evictAll(fromRows.keySet());
+        int reserved = productRepository.decrementStocks(fromRows);
+        if (reserved != fromRows.size()) {
+            throw new InsufficientStockException("Insufficient stock for one or more products in the cart");
+        }
+    }
+
+    /**
+     * Returns reserved stock, e.g. for a cancelled order.
+     */
+    @Transactional
+    public void releaseStock(Map<Long, Integer> quantities) {
+        productCache.evictAll(quantities.keySet());
+        productRepository.incrementStocks(quantities);
+    }
+
+    /**
+     * Locks the stock of the given products until the surrounding transaction ends and returns it.
+     * Products that do not exist are missing from the result.
+     */
+    @Transactional
+    public Map<Long, Integer> lockStock(Collection<Long> productIds) {
+        return productRepository.lockStocks(productIds);
     }
 
     private boolean isAdminUser(User user) {
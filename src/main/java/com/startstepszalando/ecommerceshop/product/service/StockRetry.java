@@ -0,0 +1,82 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a product write in its own transaction and retries it when it loses a race: an
+ * optimistic version check failing, a lock wait timing out or a deadlock. Attempts back off
+ * exponentially with full jitter, so writers that collided once do not collide again in
+ * lockstep. Every retry and every give-up is counted in {@code products.stock.contention},
+ * tagged with the operation and the outcome.
+ * <p>
+ * Inside an existing transaction the write runs once: the outer transaction is already
+ * doomed by the failure, so only its owner can retry.
+ */
+@Slf4j
+final class StockRetry {
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final MeterRegistry meterRegistry;
+
+    StockRetry(TransactionTemplate transactionTemplate, int maxAttempts, Duration baseDelay, Duration maxDelay,
+               MeterRegistry meterRegistry) {
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    <T> T execute(String operation, Supplier<T> write) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return write.get();
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> write.get());
+            } catch (ConcurrencyFailureException e) {
+                if (attempt == maxAttempts) {
+                    count(operation, "exhausted");
+                    log.warn("{} still conflicting after {} attempts", operation, attempt);
+                    throw e;
+                }
+                count(operation, "retried");
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    private void backOff(int attempt, ConcurrencyFailureException cause) {
+        long ceiling = Math.min(maxDelayNanos, baseDelayNanos << Math.min(attempt - 1, 20));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(Duration.ofNanos(delay).toMillis(), (int) (delay % 1_000_000));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private void count(String operation, String outcome) {
+        if (meterRegistry != null) {
+            Counter.builder("products.stock.contention")
+                    .description("Product writes that lost a concurrent update race")
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+}
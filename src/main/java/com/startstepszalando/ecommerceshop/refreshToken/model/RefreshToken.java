@@ -2,8 +2,6 @@ package com.startstepszalando.ecommerceshop.refreshToken.model;
 
 import com.startstepszalando.ecommerceshop.user.model.User;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -11,11 +9,21 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.Instant;
 import java.time.LocalDateTime;
 
+/**
+ * One refresh token family: a login on one device and every token rotated from it. Only the
+ * SHA-256 of the current token is stored, in a fixed-width indexed column, together with the
+ * hash of the token it replaced so a replayed, already rotated token can be recognised.
+ */
 @Entity
 @Data
-@Table(name = "refresh_token",
+@Table(name = "refresh_tokens",
         uniqueConstraints = {
-                @UniqueConstraint(columnNames = "token")
+                @UniqueConstraint(name = "uk_refresh_tokens_token_hash", columnNames = "token_hash")
+        },
+        indexes = {
+                @Index(name = "idx_refresh_tokens_previous_hash", columnList = "previous_hash"),
+                @Index(name = "idx_refresh_tokens_user_id", columnList = "user_id"),
+                @Index(name = "idx_refresh_tokens_expiry_date", columnList = "expiry_date")
         })
 @NoArgsConstructor
 public class RefreshToken {
@@ -23,12 +31,20 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
 
-    @OneToOne
-    @JoinColumn(name = "userId", referencedColumnName = "id")
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "user_id", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private User user;
 
-    @NotBlank
-    @NotNull
+    @Column(name = "token_hash", nullable = false, columnDefinition = "BINARY(32)")
+    private byte[] tokenHash;
+
+    @Column(name = "previous_hash", columnDefinition = "BINARY(32)")
+    private byte[] previousHash;
+
+    // The raw token, only known right after it was issued
+    @Transient
     private String token;
 
     @Column(name = "expiry_date", nullable = false)
@@ -39,4 +55,4 @@ public class RefreshToken {
 
     @UpdateTimestamp
     private LocalDateTime updatedAt;
-}
\ No newline at end of file
+}
@@ -4,16 +4,49 @@ import com.startstepszalando.ecommerceshop.refreshToken.model.RefreshToken;
 import com.startstepszalando.ecommerceshop.user.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
-    Optional<RefreshToken> findByToken(String token);
+    @Query("SELECT t FROM RefreshToken t JOIN FETCH t.user WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") byte[] tokenHash);
 
+    /**
+     * Replaces the current token of the family. Returns 0 when the token was rotated in the
+     * meantime, i.e. the same token was used twice concurrently.
+     */
     @Modifying
-    int deleteByUser(User user);
+    @Query("UPDATE RefreshToken t SET t.tokenHash = :next, t.previousHash = :current, t.updatedAt = :now " +
+            "WHERE t.id = :id AND t.tokenHash = :current")
+    int rotate(@Param("id") long id, @Param("current") byte[] current, @Param("next") byte[] next,
+               @Param("now") LocalDateTime now);
 
-    Optional<RefreshToken> findByUserId(Long userId);
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.previousHash = :previousHash")
+    int deleteByPreviousHash(@Param("previousHash") byte[] previousHash);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.user = :user")
+    int deleteByUser(@Param("user") User user);
+
+    /**
+     * The oldest expired tokens, read as a range scan on the expiry date index.
+     */
+    @Query("SELECT t.id FROM RefreshToken t WHERE t.expiryDate < :now ORDER BY t.expiryDate")
+    List<Long> findExpiredIds(@Param("now") Instant now, Pageable limit);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,96 @@
+package com.startstepszalando.ecommerceshop.refreshToken.service;
+
+import com.startstepszalando.ecommerceshop.refreshToken.repository.RefreshTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes expired refresh tokens in the background. Each chunk reads the ids of the oldest
+ * expired tokens from the expiry date index and deletes them by primary key in its own short
+ * transaction, pausing between chunks so concurrent logins and refreshes never wait long on
+ * its locks. Purged rows are counted in {@code refresh_tokens.purged}; {@code refresh_tokens.rows}
+ * reports the table size, counted once at the end of every run rather than on every scrape.
+ */
+@Slf4j
+@Component
+public class RefreshTokenPurger {
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final int batchSize;
+    private final Duration pause;
+    private final AtomicLong rows = new AtomicLong();
+    private final Counter purgedCounter;
+
+    public RefreshTokenPurger(RefreshTokenRepository refreshTokenRepository,
+                              ObjectProvider<MeterRegistry> meterRegistry,
+                              @Value("${app.jwt.refresh.purge-batch-size:1000}") int batchSize,
+                              @Value("${app.jwt.refresh.purge-pause:PT0.1S}") Duration pause) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.batchSize = batchSize;
+        this.pause = pause;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            this.purgedCounter = Counter.builder("refresh_tokens.purged")
+                    .description("Expired refresh tokens deleted by the background purge")
+                    .register(registry);
+            Gauge.builder("refresh_tokens.rows", rows, AtomicLong::get)
+                    .description("Rows in the refresh token table as of the last purge")
+                    .register(registry);
+        } else {
+            this.purgedCounter = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.refresh.purge-interval:PT10M}",
+            initialDelayString = "${app.jwt.refresh.purge-initial-delay:PT1M}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        long purged = 0;
+        try {
+            List<Long> expired;
+            do {
+                expired = refreshTokenRepository.findExpiredIds(now, PageRequest.of(0, batchSize));
+                if (expired.isEmpty()) {
+                    break;
+                }
+                int deleted = refreshTokenRepository.deleteByIdIn(expired);
+                purged += deleted;
+                if (purgedCounter != null) {
+                    purgedCounter.increment(deleted);
+                }
+            } while (expired.size() == batchSize && pauseBetweenChunks());
+            rows.set(refreshTokenRepository.count());
+        } catch (DataAccessException e) {
+            // The next run picks up where this one stopped
+            log.warn("Refresh token purge stopped after {} rows: {}", purged, e.getMostSpecificCause().getMessage());
+            return;
+        }
+
+        if (purged > 0) {
+            log.info("Purged {} expired refresh tokens", purged);
+        }
+    }
+
+    private boolean pauseBetweenChunks() {
+        try {
+            Thread.sleep(pause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -8,16 +8,34 @@ import com.startstepszalando.ecommerceshop.refreshToken.model.RefreshToken;
 import com.startstepszalando.ecommerceshop.refreshToken.repository.RefreshTokenRepository;
 import com.startstepszalando.ecommerceshop.user.model.User;
 import com.startstepszalando.ecommerceshop.user.repository.UserRepository;
+import com.startstepszalando.ecommerceshop.user.service.UserImpl;
 import jakarta.transaction.Transactional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.Optional;
-import java.util.UUID;
 
+/**
+ * Refresh tokens are random 256-bit values handed to the client once; the database only keeps
+ * their SHA-256, so lookups are point reads on a fixed-width unique index. Every login starts a
+ * new token family, so a user can stay signed in on several devices. Each refresh rotates the
+ * family to a new token; presenting a token that was already rotated away deletes the family,
+ * since either the client or an attacker holds a stolen copy.
+ */
 @Service
 public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     @Value("${app.jwt.expiration-ms}")
     private Long refreshTokenDurationMs;
     private final RefreshTokenRepository refreshTokenRepository;
@@ -29,30 +47,22 @@ public class RefreshTokenService {
     }
 
     public Optional<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+        return refreshTokenRepository.findByTokenHash(hash(token));
     }
 
+    /**
+     * Starts a new token family for a login. The returned entity carries the raw token.
+     */
     public RefreshToken createOrUpdateRefreshToken(Long userId) {
-        Optional<RefreshToken> existingToken = refreshTokenRepository.findByUserId(userId);
-        RefreshToken refreshToken;
-        if (existingToken.isPresent()) {
-            // Update the existing token
-            refreshToken = existingToken.get();
-            refreshToken.setToken(UUID.randomUUID().toString());
-            refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
-        } else {
-            // Create a new token
-            refreshToken = new RefreshToken();
-            refreshToken.setUser(userRepository.findById(userId).orElseThrow(() ->
-                    new UserNotFoundException("User not found with id: " + userId)));
-            refreshToken.setToken(UUID.randomUUID().toString());
-            refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
-        }
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUser(userRepository.getReferenceById(userId));
+        refreshToken.setToken(newToken());
+        refreshToken.setTokenHash(hash(refreshToken.getToken()));
+        refreshToken.setExpiryDate(Instant.now().plusMillis(refreshTokenDurationMs));
 
         return refreshTokenRepository.save(refreshToken);
     }
 
-
     public RefreshToken verifyExpiration(RefreshToken token) {
         if (token.getExpiryDate().compareTo(Instant.now()) < 0) {
             refreshTokenRepository.delete(token);
@@ -71,13 +81,46 @@ public class RefreshTokenService {
         }
     }
 
+    /**
+     * Issues a new access token and rotates the refresh token: one lookup by hash and one update.
+     */
+    @Transactional(dontRollbackOn = TokenRefreshException.class)
     public TokenRefreshResponse refreshToken(String requestRefreshToken, JwtService jwtService) throws TokenRefreshException {
-        RefreshToken refreshToken = findByToken(requestRefreshToken)
-                .orElseThrow(() -> new TokenRefreshException(requestRefreshToken, "Refresh token is not in database!"));
+        if (requestRefreshToken == null || requestRefreshToken.isBlank()) {
+            throw new TokenRefreshException(requestRefreshToken, "Refresh token is not in database!");
+        }
+        byte[] currentHash = hash(requestRefreshToken);
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(currentHash)
+                .orElseThrow(() -> {
+                    if (refreshTokenRepository.deleteByPreviousHash(currentHash) > 0) {
+                        logger.warn("Rotated refresh token was presented again, its token family was revoked");
+                    }
+                    return new TokenRefreshException(requestRefreshToken, "Refresh token is not in database!");
+                });
 
+        refreshToken.setToken(requestRefreshToken);
         verifyExpiration(refreshToken);
-        User user = refreshToken.getUser();
-        String token = jwtService.generateTokenFromUsername(user.getEmail());
-        return new TokenRefreshResponse(token, requestRefreshToken);
+
+        String nextToken = newToken();
+        if (refreshTokenRepository.rotate(refreshToken.getId(), currentHash, hash(nextToken), LocalDateTime.now()) == 0) {
+            throw new TokenRefreshException(requestRefreshToken, "Refresh token was already used. Please login again.");
+        }
+
+        String token = jwtService.generateToken(UserImpl.build(refreshToken.getUser()));
+        return new TokenRefreshResponse(token, nextToken);
+    }
+
+    private static String newToken() {
+        byte[] token = new byte[32];
+        RANDOM.nextBytes(token);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    private static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 }
@@ -6,6 +6,7 @@ import com.startstepszalando.ecommerceshop.exception.*;
 import com.startstepszalando.ecommerceshop.exception.token.TokenRefreshException;
 import com.startstepszalando.ecommerceshop.exception.token.TokenValidationException;
 import com.startstepszalando.ecommerceshop.exception.user.DuplicateUserException;
+import com.startstepszalando.ecommerceshop.exception.user.PasswordHashingUnavailableException;
 import com.startstepszalando.ecommerceshop.exception.user.UserNotFoundException;
 import com.startstepszalando.ecommerceshop.jwt.JwtService;
 import com.startstepszalando.ecommerceshop.refreshToken.dto.TokenRefreshRequest;
@@ -15,11 +16,13 @@ import com.startstepszalando.ecommerceshop.refreshToken.service.RefreshTokenServ
 import com.startstepszalando.ecommerceshop.user.dto.UserLoginRequest;
 import com.startstepszalando.ecommerceshop.user.dto.UserRegistrationRequest;
 import com.startstepszalando.ecommerceshop.user.service.UserImpl;
+import com.startstepszalando.ecommerceshop.user.service.UserRevocationService;
 import com.startstepszalando.ecommerceshop.user.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -27,6 +30,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -48,6 +52,7 @@ public class UserController {
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final RefreshTokenService refreshTokenService;
+    private final UserRevocationService userRevocationService;
 
     @Operation(summary = "Register a new user",
             description = "Returns the registered username (email), roles, access token and refresh token.",
@@ -61,6 +66,9 @@ public class UserController {
                     @ApiResponse(responseCode = "400", description = "Duplicate user detected",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = DuplicateUserException.class))),
+                    @ApiResponse(responseCode = "503", description = "Too many sign-ins in progress, retry after the Retry-After delay",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = PasswordHashingUnavailableException.class))),
                     @ApiResponse(responseCode = "500", description = "Internal server error or unexpected error during registration",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = Exception.class)))
@@ -95,6 +103,9 @@ public class UserController {
                     @ApiResponse(responseCode = "401", description = "Bad credentials",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = AuthenticationException.class))),
+                    @ApiResponse(responseCode = "503", description = "Too many sign-ins in progress, retry after the Retry-After delay",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = PasswordHashingUnavailableException.class))),
                     @ApiResponse(responseCode = "500", description = "Internal server error",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = Exception.class)))
@@ -143,4 +154,24 @@ public class UserController {
         TokenRefreshResponse response = refreshTokenService.refreshToken(request.getRefreshToken(), jwtService);
         return ResponseEntity.ok(response);
     }
+
+    @Operation(summary = "Revoke a user's tokens",
+            description = "This allows users with the ADMIN role to reject every token the user currently holds, e.g. after disabling the account. " +
+                    "Access tokens stop working within the revocation refresh interval on every instance, and the refresh token is deleted.",
+            security = {@SecurityRequirement(name = "bearerAuth")},
+            responses = {
+                    @ApiResponse(responseCode = "204", description = "Tokens revoked"),
+                    @ApiResponse(responseCode = "404", description = "User not found",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = UserNotFoundException.class))),
+                    @ApiResponse(responseCode = "500", description = "Internal server error",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = Exception.class)))
+            })
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/{id}/revoke-tokens")
+    public ResponseEntity<Void> revokeTokens(@PathVariable("id") Long id) {
+        userRevocationService.revoke(id);
+        return ResponseEntity.noContent().build();
+    }
 }
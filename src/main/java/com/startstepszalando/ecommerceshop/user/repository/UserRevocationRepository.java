@@ -0,0 +1,22 @@
+package com.startstepszalando.ecommerceshop.user.repository;
+
+import com.startstepszalando.ecommerceshop.user.model.UserRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface UserRevocationRepository extends JpaRepository<UserRevocation, Long> {
+    List<UserRevocation> findByRevokedAtAfter(Instant cutoff);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserRevocation r WHERE r.revokedAt <= :cutoff")
+    int deleteRevokedBefore(@Param("cutoff") Instant cutoff);
+}
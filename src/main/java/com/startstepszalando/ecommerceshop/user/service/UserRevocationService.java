@@ -0,0 +1,93 @@
+package com.startstepszalando.ecommerceshop.user.service;
+
+import com.startstepszalando.ecommerceshop.jwt.JwtPrincipalCache;
+import com.startstepszalando.ecommerceshop.refreshToken.service.RefreshTokenService;
+import com.startstepszalando.ecommerceshop.user.model.UserRevocation;
+import com.startstepszalando.ecommerceshop.user.repository.UserRevocationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Revokes the tokens a user already holds, e.g. when the account is disabled. Access tokens are
+ * checked against an in-memory list, so the check costs no query per request; every instance
+ * reloads the list from {@code user_revocations} every {@code app.jwt.revocation.refresh-interval},
+ * which bounds how long a revoked token keeps working on other instances. Entries are dropped
+ * once every token they cover has expired.
+ */
+@Slf4j
+@Service
+public class UserRevocationService {
+    private final UserRevocationRepository userRevocationRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final JwtPrincipalCache principalCache;
+    private final Duration retention;
+    private volatile Map<Long, Instant> revocations = Map.of();
+
+    public UserRevocationService(UserRevocationRepository userRevocationRepository,
+                                 RefreshTokenService refreshTokenService,
+                                 JwtPrincipalCache principalCache,
+                                 @Value("${app.jwt.expiration-ms}") long tokenLifetimeMs) {
+        this.userRevocationRepository = userRevocationRepository;
+        this.refreshTokenService = refreshTokenService;
+        this.principalCache = principalCache;
+        this.retention = Duration.ofMillis(tokenLifetimeMs);
+    }
+
+    /**
+     * Rejects every access token issued to the user so far and deletes their refresh token.
+     */
+    @Transactional
+    public void revoke(Long userId) {
+        refreshTokenService.deleteByUserId(userId);
+        Instant now = Instant.now();
+        userRevocationRepository.save(new UserRevocation(userId, now));
+        remember(Map.of(userId, now));
+        log.info("Revoked the tokens of user {}", userId);
+    }
+
+    /**
+     * JWT issue times have second precision, so a token issued in the same second as the
+     * revocation counts as revoked.
+     */
+    public boolean isRevoked(Long userId, Date issuedAt) {
+        Instant revokedAt = revocations.get(userId);
+        return revokedAt != null && (issuedAt == null || !issuedAt.toInstant().isAfter(revokedAt));
+    }
+
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.refresh-interval:PT5S}")
+    public void refresh() {
+        Instant cutoff = Instant.now().minus(retention);
+        userRevocationRepository.deleteRevokedBefore(cutoff);
+
+        Map<Long, Instant> loaded = new HashMap<>();
+        userRevocationRepository.findByRevokedAtAfter(cutoff)
+                .forEach(revocation -> loaded.put(revocation.getUserId(), revocation.getRevokedAt()));
+        synchronized (this) {
+            Map<Long, Instant> current = new HashMap<>(revocations);
+            current.values().removeIf(revokedAt -> !revokedAt.isAfter(cutoff));
+            revocations = current;
+        }
+        remember(loaded);
+    }
+
+    private synchronized void remember(Map<Long, Instant> revoked) {
+        Map<Long, Instant> current = new HashMap<>(revocations);
+        revoked.forEach((userId, revokedAt) -> {
+            Instant known = current.get(userId);
+            if (known == null || revokedAt.isAfter(known)) {
+                current.put(userId, revokedAt);
+                principalCache.evictUser(userId);
+            }
+        });
+        revocations = current;
+    }
+}
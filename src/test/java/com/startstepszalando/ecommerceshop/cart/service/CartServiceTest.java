@@ -0,0 +1,246 @@
+package com.startstepszalando.ecommerceshop.cart.service;
+
+import com.startstepszalando.ecommerceshop.cart.dto.CartOperation;
+import com.startstepszalando.ecommerceshop.cart.dto.CartOperationType;
+import com.startstepszalando.ecommerceshop.cart.dto.CartResponse;
+import com.startstepszalando.ecommerceshop.cart.dto.CartSummary;
+import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import com.startstepszalando.ecommerceshop.cart.model.CartItem;
+import com.startstepszalando.ecommerceshop.cart.repository.CartRepository;
+import com.startstepszalando.ecommerceshop.cart.store.JpaCartStore;
+import com.startstepszalando.ecommerceshop.exception.cart.InvalidCartOperationException;
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.service.UserImpl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// MySQL mode, for the INSERT ... ON DUPLICATE KEY UPDATE used to add cart items
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none",
+        "spring.datasource.url=jdbc:h2:mem:cart-service;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({CartService.class, JpaCartStore.class, CartManagementService.class, CartTotalsReconciler.class, ProductCache.class})
+class CartServiceTest {
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartTotalsReconciler cartTotalsReconciler;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void givenCartWithSeveralLines_CalculateCheckoutTotalInOneQuery() {
+        User user = persistUser("total@example.com");
+        Cart cart = persistCart(user);
+        persistLine(cart, "Notebook", "3.20", 5);
+        persistLine(cart, "Pen", "1.15", 2);
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics.clear();
+        BigDecimal total = cartService.calculateTotalCost(cart);
+
+        assertThat(total).isEqualByComparingTo("18.30");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(cartService.getCartTotal(cart).getLineCount()).isEqualTo(2);
+    }
+
+    @Test
+    void givenItemsAddedAndRemoved_KeepRunningTotalsOnCart() throws Exception {
+        persistUser("running@example.com");
+        Product notebook = persistProduct("Notebook", "3.20");
+        Product pen = persistProduct("Pen", "1.15");
+
+        cartService.addProductToCart(notebook.getId(), 5);
+        cartService.addProductToCart(pen.getId(), 2);
+
+        statistics.clear();
+        cartService.addProductToCart(notebook.getId(), 1);
+        entityManager.flush();
+        // Totals update and line upsert; the product comes from the cache
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+
+        cartService.removeProductFromCart(pen.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics.clear();
+        CartSummary summary = cartService.getCartSummary();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(summary.getItemCount()).isEqualTo(6);
+        assertThat(summary.getSubtotal()).isEqualByComparingTo("19.20");
+        assertThat(cartService.calculateTotalCost()).isEqualByComparingTo("19.20");
+        assertThat(cartService.getMyCartDetails().getItems())
+                .singleElement()
+                .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(6));
+    }
+
+    @Test
+    void givenBatchOfOperations_ApplyThemWithOneStockQuery() throws Exception {
+        User user = persistUser("batch@example.com");
+        Cart cart = persistCart(user);
+        Product notebook = persistLine(cart, "Notebook", "3.20", 5);
+        Product pen = persistLine(cart, "Pen", "1.15", 2);
+        Product mug = persistProduct("Mug", "4.00");
+        Product lamp = persistProduct("Lamp", "20.00");
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics.clear();
+        CartResponse response = cartService.applyBatch(List.of(
+                new CartOperation(CartOperationType.ADD, mug.getId(), 2),
+                new CartOperation(CartOperationType.ADD, mug.getId(), 1),
+                new CartOperation(CartOperationType.SET_QUANTITY, notebook.getId(), 1),
+                new CartOperation(CartOperationType.REMOVE, pen.getId(), null),
+                new CartOperation(CartOperationType.ADD, lamp.getId(), 1),
+                new CartOperation(CartOperationType.SET_QUANTITY, lamp.getId(), 0)));
+        entityManager.flush();
+
+        // Cart lock, lines, stock check, delete, update, insert and totals
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(7);
+        assertThat(response.getItems())
+                .extracting(item -> item.getProductName() + "=" + item.getQuantity())
+                .containsExactlyInAnyOrder("Notebook=1", "Mug=3");
+
+        entityManager.clear();
+        CartSummary summary = cartService.getCartSummary();
+        assertThat(summary.getItemCount()).isEqualTo(4);
+        assertThat(summary.getSubtotal()).isEqualByComparingTo("15.20");
+        assertThat(cartService.getMyCartDetails().getItems()).hasSize(2);
+    }
+
+    @Test
+    void givenBatchExceedingStock_ApplyNothing() {
+        User user = persistUser("batch-stock@example.com");
+        Cart cart = persistCart(user);
+        Product pen = persistLine(cart, "Pen", "1.15", 2);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThatThrownBy(() -> cartService.applyBatch(List.of(
+                new CartOperation(CartOperationType.ADD, pen.getId(), 60),
+                new CartOperation(CartOperationType.ADD, pen.getId(), 60))))
+                .isInstanceOf(InsufficientStockException.class);
+
+        entityManager.clear();
+        assertThat(cartService.getMyCartDetails().getItems())
+                .singleElement()
+                .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(2));
+    }
+
+    @Test
+    void givenBatchAddingBeyondMaximumQuantity_RejectItAsInvalid() {
+        User user = persistUser("batch-overflow@example.com");
+        Cart cart = persistCart(user);
+        Product pen = persistLine(cart, "Pen", "1.15", 2);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThatThrownBy(() -> cartService.applyBatch(List.of(
+                new CartOperation(CartOperationType.ADD, pen.getId(), Integer.MAX_VALUE))))
+                .isInstanceOf(InvalidCartOperationException.class);
+        assertThatThrownBy(() -> cartService.applyBatch(List.of(
+                new CartOperation(CartOperationType.ADD, pen.getId(), CartOperation.MAX_QUANTITY),
+                new CartOperation(CartOperationType.ADD, pen.getId(), CartOperation.MAX_QUANTITY))))
+                .isInstanceOf(InvalidCartOperationException.class);
+
+        entityManager.clear();
+        assertThat(cartService.getMyCartDetails().getItems())
+                .singleElement()
+                .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(2));
+    }
+
+    @Test
+    void givenDriftedTotals_ReconcileFromCartItems() {
+        User user = persistUser("drift@example.com");
+        Cart cart = persistCart(user);
+        persistLine(cart, "Mug", "4.00", 3);
+        entityManager.flush();
+
+        cartTotalsReconciler.reconcile();
+
+        CartSummary summary = cartService.getCartSummary();
+        assertThat(summary.getItemCount()).isEqualTo(3);
+        assertThat(summary.getSubtotal()).isEqualByComparingTo("12.00");
+    }
+
+    @Test
+    void givenUserWithoutCart_ReturnZeroWithoutCreatingCart() {
+        User user = persistUser("no-cart@example.com");
+
+        BigDecimal total = cartService.calculateTotalCost();
+
+        assertThat(total).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(cartRepository.findByUserId(user.getId())).isEmpty();
+    }
+
+    private User persistUser(String email) {
+        User user = entityManager.persist(new User(null, "Shopper", email, "password", Role.CUSTOMER));
+        UserImpl principal = UserImpl.build(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        return user;
+    }
+
+    private Cart persistCart(User user) {
+        Cart cart = new Cart();
+        cart.setUser(user);
+        return entityManager.persist(cart);
+    }
+
+    private Product persistProduct(String name, String price) {
+        return entityManager.persist(new Product(null, name, new BigDecimal(price), name + " description", 100, null));
+    }
+
+    private Product persistLine(Cart cart, String name, String price, int quantity) {
+        Product product = persistProduct(name, price);
+        entityManager.persist(new CartItem(cart, product, quantity));
+        return product;
+    }
+}
@@ -0,0 +1,177 @@
+package com.startstepszalando.ecommerceshop.cart.store;
+
+import com.startstepszalando.ecommerceshop.cart.dto.CartOperation;
+import com.startstepszalando.ecommerceshop.cart.dto.CartOperationType;
+import com.startstepszalando.ecommerceshop.cart.dto.CartSummary;
+import com.startstepszalando.ecommerceshop.cart.service.CartService;
+import com.startstepszalando.ecommerceshop.config.CartStoreConfig;
+import com.startstepszalando.ecommerceshop.order.model.Order;
+import com.startstepszalando.ecommerceshop.order.repository.OrderProductRepository;
+import com.startstepszalando.ecommerceshop.order.service.OrderService;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import com.startstepszalando.ecommerceshop.product.service.ProductSearchIndex;
+import com.startstepszalando.ecommerceshop.product.service.ProductService;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.repository.UserRepository;
+import com.startstepszalando.ecommerceshop.user.service.UserImpl;
+import com.startstepszalando.ecommerceshop.user.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.cart.store=memory"
+})
+@Import({CartService.class, CartStoreConfig.class, OrderService.class, ProductService.class,
+        ProductCache.class, ProductSearchIndex.class})
+class KeyValueCartStoreTest {
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderProductRepository orderProductRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private UserService userService;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void givenKeyValueStore_WriteToDatabaseOnlyAtCheckout() throws Exception {
+        given(userService.isValidUserDetails(any(User.class))).willReturn(true);
+        persistUser("key-value@example.com");
+        Product notebook = persistProduct("Notebook", "3.20");
+        Product pen = persistProduct("Pen", "1.15");
+        Product mug = persistProduct("Mug", "4.00");
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        cartService.addProductToCart(notebook.getId(), 2);
+        cartService.addProductToCart(notebook.getId(), 3);
+        cartService.addProductToCart(pen.getId(), 2);
+        cartService.applyBatch(List.of(
+                new CartOperation(CartOperationType.REMOVE, pen.getId(), null),
+                new CartOperation(CartOperationType.SET_QUANTITY, mug.getId(), 1)));
+
+        CartSummary summary = cartService.getCartSummary();
+        assertThat(summary.getItemCount()).isEqualTo(6);
+        assertThat(summary.getSubtotal()).isEqualByComparingTo("20.00");
+        assertThat(countRows("carts")).isZero();
+        assertThat(countRows("cart_item")).isZero();
+
+        Order order = orderService.createOrderFromCart(cartService.getMyCart());
+
+        assertThat(order.getTotalPrice()).isEqualByComparingTo("20.00");
+        assertThat(orderProductRepository.findByOrderId(order.getId())).hasSize(2);
+        assertThat(productRepository.findById(notebook.getId()).orElseThrow().getStock()).isEqualTo(95);
+        assertThat(cartService.getMyCartDetails().getItems()).isEmpty();
+        assertThat(countRows("carts")).isZero();
+    }
+
+    @Test
+    void givenUntouchedCart_ExpireAfterTtl() {
+        User user = persistUser("abandoned@example.com");
+        Product notebook = persistProduct("Notebook", "3.20");
+        MutableClock clock = new MutableClock();
+        KeyValueCartStore store = new KeyValueCartStore(new InMemoryCartHashStore(clock),
+                productRepository, userRepository, productCache, Duration.ofMinutes(30));
+
+        store.addItem(user.getId(), notebook, 1);
+        clock.advance(Duration.ofMinutes(20));
+        store.addItem(user.getId(), notebook, 1);
+        clock.advance(Duration.ofMinutes(20));
+
+        assertThat(store.getCartDetails(user.getId()).getItems())
+                .singleElement()
+                .satisfies(item -> assertThat(item.getQuantity()).isEqualTo(2));
+
+        clock.advance(Duration.ofMinutes(11));
+
+        assertThat(store.getCartDetails(user.getId()).getItems()).isEmpty();
+        assertThat(store.getSummary(user.getId())).isEmpty();
+    }
+
+    private long countRows(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private User persistUser(String email) {
+        User user = entityManager.persist(new User(null, "Shopper", email, "password", Role.CUSTOMER));
+        UserImpl principal = UserImpl.build(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        return user;
+    }
+
+    private Product persistProduct(String name, String price) {
+        return entityManager.persist(new Product(null, name, new BigDecimal(price), name + " description", 100, null));
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.startstepszalando.ecommerceshop.config;
+
+import com.startstepszalando.ecommerceshop.jwt.JwtService;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.security.password.bcrypt-strength=4"
+})
+@Import({ApplicationConfig.class, AuthenticationConfiguration.class, UserService.class})
+class ApplicationConfigTest {
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private JwtService jwtService;
+
+    @Test
+    void givenHashWithPreviousCost_RehashWithConfiguredCostOnLogin() {
+        String storedHash = new BCryptPasswordEncoder(5).encode("secret-password");
+        User user = entityManager.persistAndFlush(
+                new User(null, "Jane", "jane@example.com", storedHash, Role.CUSTOMER));
+
+        authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken("jane@example.com", "secret-password"));
+        entityManager.flush();
+        entityManager.clear();
+
+        String rehashed = entityManager.find(User.class, user.getId()).getPassword();
+        assertThat(rehashed).startsWith("$2a$04$");
+        assertThat(passwordEncoder.matches("secret-password", rehashed)).isTrue();
+        assertThat(passwordEncoder.upgradeEncoding(rehashed)).isFalse();
+    }
+}
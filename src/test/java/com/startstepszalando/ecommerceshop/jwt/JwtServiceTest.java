@@ -0,0 +1,34 @@
+package com.startstepszalando.ecommerceshop.jwt;
+
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.service.UserImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtServiceTest {
+    private final JwtService jwtService = new JwtService("test", 60_000,
+            "dGVzdC1zaWduaW5nLWtleS1vZi1hdC1sZWFzdC0zMi1ieXRlcy1sb25n");
+
+    @Test
+    void givenTokenWithUserIdAndRoles_BuildPrincipalWithoutLookup() {
+        User user = new User(42L, "Ada", "ada@example.com", "secret", Role.ADMIN);
+        String token = jwtService.generateToken(UserImpl.build(user));
+
+        UserImpl principal = jwtService.getPrincipalFromClaims(jwtService.parseValidClaims(token));
+
+        assertThat(principal.getId()).isEqualTo(42L);
+        assertThat(principal.getUsername()).isEqualTo("ada@example.com");
+        assertThat(principal.getPassword()).isNull();
+        assertThat(principal.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ADMIN");
+    }
+
+    @Test
+    void givenTokenWithoutUserId_FallBackToLookup() {
+        String token = jwtService.generateTokenFromUsername("ada@example.com");
+
+        assertThat(jwtService.getPrincipalFromClaims(jwtService.parseValidClaims(token))).isNull();
+    }
+}
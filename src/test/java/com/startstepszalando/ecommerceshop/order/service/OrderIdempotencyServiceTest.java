@@ -0,0 +1,108 @@
+package com.startstepszalando.ecommerceshop.order.service;
+
+import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import com.startstepszalando.ecommerceshop.cart.model.CartItem;
+import com.startstepszalando.ecommerceshop.cart.service.CartManagementService;
+import com.startstepszalando.ecommerceshop.cart.service.CartService;
+import com.startstepszalando.ecommerceshop.cart.store.JpaCartStore;
+import com.startstepszalando.ecommerceshop.order.dto.OrderResponse;
+import com.startstepszalando.ecommerceshop.order.repository.OrderRepository;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import com.startstepszalando.ecommerceshop.product.service.ProductSearchIndex;
+import com.startstepszalando.ecommerceshop.product.service.ProductService;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.service.UserImpl;
+import com.startstepszalando.ecommerceshop.user.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+// MySQL mode, for the INSERT IGNORE that claims a key
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none",
+        "spring.datasource.url=jdbc:h2:mem:order-idempotency;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OrderIdempotencyService.class, OrderService.class, ProductService.class, ProductCache.class,
+        ProductSearchIndex.class, CartService.class, JpaCartStore.class, CartManagementService.class})
+class OrderIdempotencyServiceTest {
+    @Autowired
+    private OrderIdempotencyService orderIdempotencyService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private UserService userService;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void givenRetryWithSameKey_ReturnOriginalOrderFromOneLookup() throws Exception {
+        given(userService.isValidUserDetails(any(User.class))).willReturn(true);
+        User user = entityManager.persist(new User(null, "Shopper", "retry@example.com", "password", Role.CUSTOMER));
+        UserImpl principal = UserImpl.build(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        Product notebook = entityManager.persist(
+                new Product(null, "Notebook", new BigDecimal("3.20"), "Notebook description", 100, null));
+        Cart cart = new Cart();
+        cart.setUser(user);
+        entityManager.persist(cart);
+        entityManager.persist(new CartItem(cart, notebook, 5));
+        entityManager.flush();
+        entityManager.clear();
+
+        OrderResponse first = orderIdempotencyService.createOrderFromCart("checkout-1", user.getEmail());
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        OrderResponse retry = orderIdempotencyService.createOrderFromCart("checkout-1", user.getEmail());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(retry).isEqualTo(first);
+        assertThat(retry.getProducts()).singleElement()
+                .satisfies(line -> assertThat(line.getQuantity()).isEqualTo(5));
+        assertThat(orderRepository.findByUserId(user.getId())).hasSize(1);
+        assertThat(productRepository.findById(notebook.getId()).orElseThrow().getStock()).isEqualTo(95);
+    }
+}
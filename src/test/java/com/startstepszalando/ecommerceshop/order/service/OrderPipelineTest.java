@@ -0,0 +1,158 @@
+package com.startstepszalando.ecommerceshop.order.service;
+
+import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import com.startstepszalando.ecommerceshop.cart.model.CartItem;
+import com.startstepszalando.ecommerceshop.cart.service.CartService;
+import com.startstepszalando.ecommerceshop.order.model.Order;
+import com.startstepszalando.ecommerceshop.order.model.OrderOutbox;
+import com.startstepszalando.ecommerceshop.order.model.OrderStatus;
+import com.startstepszalando.ecommerceshop.order.repository.OrderOutboxRepository;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import com.startstepszalando.ecommerceshop.product.service.ProductSearchIndex;
+import com.startstepszalando.ecommerceshop.product.service.ProductService;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+
+// MySQL mode, for the FOR UPDATE SKIP LOCKED batch claim
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none",
+        "spring.datasource.url=jdbc:h2:mem:order-pipeline;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.orders.pipeline.enabled=true"
+})
+@Import({OrderService.class, OrderOutboxProcessor.class, ProductService.class, ProductCache.class,
+        ProductSearchIndex.class})
+class OrderPipelineTest {
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderOutboxProcessor orderOutboxProcessor;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private CartService cartService;
+
+    @MockBean
+    private UserService userService;
+
+    @SpyBean
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        given(userService.isValidUserDetails(any(User.class))).willReturn(true);
+        given(cartService.calculateTotalCost(any(Cart.class))).willReturn(new BigDecimal("30.00"));
+    }
+
+    @Test
+    void givenOrdersCompetingForStock_ConfirmFirstAndCancelTheRest() throws Exception {
+        Product product = entityManager.persist(
+                new Product(null, "Limited Edition", new BigDecimal("10.00"), "Only five made", 5, null));
+        Order first = orderService.createOrderFromCart(persistCart("first@example.com", product, 3));
+        Order second = orderService.createOrderFromCart(persistCart("second@example.com", product, 3));
+        entityManager.flush();
+
+        // Checkout only records the orders; stock is untouched until the pipeline runs
+        assertThat(stockOf(product)).isEqualTo(5);
+        assertThat(orderOutboxRepository.count()).isEqualTo(2);
+
+        assertThat(orderOutboxProcessor.processBatch(10, Set.of())).isEqualTo(2);
+
+        assertThat(statusOf(first)).isEqualTo(OrderStatus.CONFIRMED);
+        assertThat(statusOf(second)).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(stockOf(product)).isEqualTo(2);
+        assertThat(orderOutboxRepository.count()).isZero();
+
+        orderService.updateOrderStatus(first.getId(), OrderStatus.CANCELLED);
+        entityManager.flush();
+
+        assertThat(stockOf(product)).isEqualTo(5);
+    }
+
+    @Test
+    void givenOrderCancelledBeforeProcessing_ReserveNothing() throws Exception {
+        Product product = entityManager.persist(
+                new Product(null, "Changed Mind", new BigDecimal("10.00"), "Cancelled early", 5, null));
+        Order order = orderService.createOrderFromCart(persistCart("early@example.com", product, 3));
+        entityManager.flush();
+
+        orderService.updateOrderStatus(order.getId(), OrderStatus.CANCELLED);
+        entityManager.flush();
+
+        assertThat(orderOutboxProcessor.processBatch(10, Set.of())).isZero();
+        assertThat(statusOf(order)).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(stockOf(product)).isEqualTo(5);
+    }
+
+    @Test
+    void givenFailingEntry_CountTheFailureAgainstThatEntryOnly() throws Exception {
+        Product product = entityManager.persist(
+                new Product(null, "Flaky", new BigDecimal("10.00"), "Fails once", 5, null));
+        Order failing = orderService.createOrderFromCart(persistCart("failing@example.com", product, 1));
+        Order waiting = orderService.createOrderFromCart(persistCart("waiting@example.com", product, 1));
+        entityManager.flush();
+        willThrow(new IllegalStateException("Stock lookup failed")).given(productService).lockStock(anyCollection());
+
+        assertThatThrownBy(() -> orderOutboxProcessor.processBatch(1, Set.of()))
+                .isInstanceOfSatisfying(OrderOutboxFailedException.class,
+                        e -> orderOutboxProcessor.recordFailure(e.getEntryIds()));
+        entityManager.clear();
+
+        assertThat(orderOutboxRepository.findAll())
+                .extracting(OrderOutbox::getOrderId, OrderOutbox::getAttempts)
+                .containsExactlyInAnyOrder(tuple(failing.getId(), 1), tuple(waiting.getId(), 0));
+    }
+
+    private Cart persistCart(String email, Product product, int quantity) {
+        User user = entityManager.persist(new User(null, "Pipeline Buyer", email, "password", Role.CUSTOMER));
+        Cart cart = new Cart();
+        cart.setUser(user);
+        entityManager.persist(cart);
+
+        CartItem cartItem = new CartItem(cart, product, quantity);
+        entityManager.persist(cartItem);
+        cart.getItems().add(cartItem);
+        entityManager.flush();
+        return cart;
+    }
+
+    private int stockOf(Product product) {
+        entityManager.clear();
+        return entityManager.find(Product.class, product.getId()).getStock();
+    }
+
+    private OrderStatus statusOf(Order order) {
+        entityManager.clear();
+        return entityManager.find(Order.class, order.getId()).getStatus();
+    }
+}
@@ -0,0 +1,148 @@
+package com.startstepszalando.ecommerceshop.order.service;
+
+import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import com.startstepszalando.ecommerceshop.cart.model.CartItem;
+import com.startstepszalando.ecommerceshop.cart.service.CartService;
+import com.startstepszalando.ecommerceshop.order.model.Order;
+import com.startstepszalando.ecommerceshop.order.model.OrderOutbox;
+import com.startstepszalando.ecommerceshop.order.model.OrderStatus;
+import com.startstepszalando.ecommerceshop.order.repository.OrderOutboxRepository;
+import com.startstepszalando.ecommerceshop.order.repository.OrderRepository;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import com.startstepszalando.ecommerceshop.product.service.ProductSearchIndex;
+import com.startstepszalando.ecommerceshop.product.service.ProductService;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+
+// The workers run on their own threads and only see committed data, so the test runs without a
+// wrapping transaction, on a database of its own
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none",
+        "spring.datasource.url=jdbc:h2:mem:order-pipeline-worker;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.orders.pipeline.enabled=true",
+        "app.orders.pipeline.workers=1",
+        "app.orders.pipeline.max-attempts=2"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({OrderService.class, OrderOutboxProcessor.class, OrderPipeline.class, ProductService.class,
+        ProductCache.class, ProductSearchIndex.class})
+class OrderPipelineWorkerTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderPipeline orderPipeline;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderOutboxRepository orderOutboxRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private CartService cartService;
+
+    @MockBean
+    private UserService userService;
+
+    @SpyBean
+    private ProductService productService;
+
+    @BeforeEach
+    void setUp() {
+        given(userService.isValidUserDetails(any(User.class))).willReturn(true);
+        given(cartService.calculateTotalCost(any(Cart.class))).willReturn(new BigDecimal("10.00"));
+    }
+
+    @Test
+    void givenPassingFailure_CountOneAttemptPerRunAndConfirmOnLaterPoll() throws Exception {
+        // The batch and the entry on its own fail in the first run, the batch once more in the next
+        willThrow(new IllegalStateException("Lock wait timeout"))
+                .willThrow(new IllegalStateException("Lock wait timeout"))
+                .willThrow(new IllegalStateException("Lock wait timeout"))
+                .willCallRealMethod()
+                .given(productService).lockStock(anyCollection());
+        Cart cart = new TransactionTemplate(transactionManager).execute(status -> persistCart("retry@example.com"));
+
+        // Placing the order starts a worker once it is committed
+        Order order = orderService.createOrderFromCart(cart);
+        await(() -> attemptsOf(order) == 1);
+        assertThat(statusOf(order)).isEqualTo(OrderStatus.PENDING);
+
+        await(() -> {
+            orderPipeline.poll();
+            return statusOf(order) == OrderStatus.CONFIRMED;
+        });
+        assertThat(orderOutboxRepository.findAll()).extracting(OrderOutbox::getOrderId).doesNotContain(order.getId());
+    }
+
+    private Cart persistCart(String email) {
+        User user = entityManager.persist(new User(null, "Pipeline Buyer", email, "password", Role.CUSTOMER));
+        Product product = entityManager.persist(
+                new Product(null, "Retried " + email, new BigDecimal("10.00"), "Reserved eventually", 5, null));
+        Cart cart = new Cart();
+        cart.setUser(user);
+        entityManager.persist(cart);
+
+        CartItem cartItem = new CartItem(cart, product, 1);
+        entityManager.persist(cartItem);
+        cart.getItems().add(cartItem);
+        return cart;
+    }
+
+    private int attemptsOf(Order order) {
+        return orderOutboxRepository.findAll().stream()
+                .filter(entry -> entry.getOrderId().equals(order.getId()))
+                .mapToInt(OrderOutbox::getAttempts)
+                .findFirst()
+                .orElse(-1);
+    }
+
+    private OrderStatus statusOf(Order order) {
+        return orderRepository.findById(order.getId()).orElseThrow().getStatus();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within %s", TIMEOUT).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
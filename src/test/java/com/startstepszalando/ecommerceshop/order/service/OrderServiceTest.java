@@ -0,0 +1,162 @@
+package com.startstepszalando.ecommerceshop.order.service;
+
+import com.startstepszalando.ecommerceshop.cart.model.Cart;
+import com.startstepszalando.ecommerceshop.cart.model.CartItem;
+import com.startstepszalando.ecommerceshop.cart.service.CartService;
+import com.startstepszalando.ecommerceshop.exception.order.InvalidOrderStatusException;
+import com.startstepszalando.ecommerceshop.order.dto.OrderResponse;
+import com.startstepszalando.ecommerceshop.order.model.Order;
+import com.startstepszalando.ecommerceshop.order.model.OrderStatus;
+import com.startstepszalando.ecommerceshop.order.repository.OrderProductRepository;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import com.startstepszalando.ecommerceshop.product.service.ProductSearchIndex;
+import com.startstepszalando.ecommerceshop.product.service.ProductService;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({OrderService.class, ProductService.class, ProductCache.class, ProductSearchIndex.class})
+class OrderServiceTest {
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderProductRepository orderProductRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private CartService cartService;
+
+    @MockBean
+    private UserService userService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        given(userService.isValidUserDetails(any(User.class))).willReturn(true);
+        given(cartService.calculateTotalCost(any(Cart.class))).willReturn(new BigDecimal("100.00"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void givenCartWithManyLines_CreateOrderWithConstantNumberOfStatements() throws Exception {
+        // The pooled optimizer reads the sequence twice on first use; warm it up so the
+        // measured checkout only sees the steady-state cost.
+        orderService.createOrderFromCart(persistCart("warm-up@example.com", 1));
+        Cart cart = persistCart("many-lines@example.com", 40);
+
+        statistics.clear();
+        Order order = orderService.createOrderFromCart(cart);
+        entityManager.flush();
+
+        // One guarded stock UPDATE, one order INSERT, at most one sequence call and one
+        // batched INSERT for all order lines - independent of the number of lines in the cart.
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(41);
+        assertThat(orderProductRepository.findByOrderId(order.getId())).hasSize(40);
+    }
+
+    @Test
+    void givenUserWithManyOrders_LoadOrderPageWithConstantNumberOfQueries() throws Exception {
+        String email = "history@example.com";
+        Cart cart = persistCart(email, 3);
+        for (int i = 0; i < 20; i++) {
+            orderService.createOrderFromCart(cart);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(email, null));
+        Long userId = cart.getUser().getId();
+
+        statistics.clear();
+        Page<OrderResponse> smallPage = orderService.getAllOrdersForUser(userId, 0, 5);
+        long smallPageQueries = statistics.getPrepareStatementCount();
+
+        entityManager.clear();
+        statistics.clear();
+        Page<OrderResponse> largePage = orderService.getAllOrdersForUser(userId, 0, 15);
+        long largePageQueries = statistics.getPrepareStatementCount();
+
+        // Order ids, their count, the orders with their user and the order lines.
+        assertThat(smallPageQueries).isEqualTo(4);
+        assertThat(largePageQueries).isEqualTo(smallPageQueries);
+        assertThat(largePage.getTotalElements()).isEqualTo(20);
+        assertThat(largePage.getContent()).hasSize(15)
+                .allSatisfy(order -> assertThat(order.getProducts()).hasSize(3)
+                        .allSatisfy(line -> assertThat(line.getProductName()).startsWith(email + " product ")));
+        assertThat(smallPage.getContent()).extracting(OrderResponse::getId)
+                .containsExactlyElementsOf(largePage.getContent().subList(0, 5).stream().map(OrderResponse::getId).toList());
+    }
+
+    @Test
+    void givenCancelledOrder_RejectReopeningItAndReleaseStockOnlyOnce() throws Exception {
+        Cart cart = persistCart("cancelled@example.com", 1);
+        Long productId = cart.getItems().iterator().next().getProduct().getId();
+        Order order = orderService.createOrderFromCart(cart);
+        orderService.updateOrderStatus(order.getId(), OrderStatus.CANCELLED);
+
+        assertThatThrownBy(() -> orderService.updateOrderStatus(order.getId(), OrderStatus.PENDING))
+                .isInstanceOf(InvalidOrderStatusException.class);
+        orderService.updateOrderStatus(order.getId(), OrderStatus.CANCELLED);
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(entityManager.find(Order.class, order.getId()).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(entityManager.find(Product.class, productId).getStock()).isEqualTo(100);
+    }
+
+    private Cart persistCart(String email, int lines) {
+        User user = entityManager.persist(new User(null, "Bulk Buyer", email, "password", Role.CUSTOMER));
+        Cart cart = new Cart();
+        cart.setUser(user);
+        entityManager.persist(cart);
+
+        for (int i = 0; i < lines; i++) {
+            Product product = entityManager.persist(
+                    new Product(null, email + " product " + i, new BigDecimal("2.50"), "Description " + i, 100, null));
+            CartItem cartItem = new CartItem(cart, product, 2);
+            entityManager.persist(cartItem);
+            cart.getItems().add(cartItem);
+        }
+        entityManager.flush();
+
+        return cart;
+    }
+}
@@ -5,17 +5,28 @@ import com.google.gson.*;
 import com.startstepszalando.ecommerceshop.config.ApplicationConfig;
 import com.startstepszalando.ecommerceshop.config.SecurityConfig;
 import com.startstepszalando.ecommerceshop.exception.product.DuplicateProductException;
+import com.startstepszalando.ecommerceshop.exception.product.InvalidCursorException;
 import com.startstepszalando.ecommerceshop.exception.product.ProductNotFoundException;
 import com.startstepszalando.ecommerceshop.exception.user.UserNotFoundException;
+import com.startstepszalando.ecommerceshop.jwt.JwtPrincipalCache;
 import com.startstepszalando.ecommerceshop.jwt.JwtService;
+import com.startstepszalando.ecommerceshop.product.dto.ProductCursorPaginationRequest;
+import com.startstepszalando.ecommerceshop.product.dto.ProductImportFormat;
+import com.startstepszalando.ecommerceshop.product.dto.ProductImportRequest;
+import com.startstepszalando.ecommerceshop.product.dto.ProductPaginationRequest;
 import com.startstepszalando.ecommerceshop.product.dto.ProductRequest;
+import com.startstepszalando.ecommerceshop.product.dto.ProductSearchRequest;
+import com.startstepszalando.ecommerceshop.product.dto.ProductSortKey;
 import com.startstepszalando.ecommerceshop.product.model.Product;
 import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductExportService;
+import com.startstepszalando.ecommerceshop.product.service.ProductImportService;
 import com.startstepszalando.ecommerceshop.product.service.ProductService;
 import com.startstepszalando.ecommerceshop.user.model.Role;
 import com.startstepszalando.ecommerceshop.user.model.User;
 import com.startstepszalando.ecommerceshop.user.repository.UserRepository;
 import com.startstepszalando.ecommerceshop.user.service.UserImpl;
+import com.startstepszalando.ecommerceshop.user.service.UserRevocationService;
 import com.startstepszalando.ecommerceshop.user.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,8 +42,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -51,7 +65,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 @WebMvcTest(value = ProductController.class, includeFilters = {
         @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE)})
-@Import({SecurityConfig.class, ApplicationConfig.class, UserService.class})
+@Import({SecurityConfig.class, ApplicationConfig.class, UserService.class, JwtPrincipalCache.class})
 class ProductControllerTest {
     @Autowired
     private MockMvc mvc;
@@ -62,12 +76,18 @@ class ProductControllerTest {
     @MockBean
     ProductService productService;
     @MockBean
+    ProductImportService productImportService;
+    @MockBean
+    ProductExportService productExportService;
+    @MockBean
     UserImpl userImpl;
     Gson gson;
     @MockBean
     private UserService userService;
     @MockBean
     private UserRepository userRepository;
+    @MockBean
+    private UserRevocationService userRevocationService;
 
     @BeforeEach
     public void initTest() {
@@ -371,4 +391,118 @@ class ProductControllerTest {
 
         verify(productService).getAllProducts(page, size);
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenCursorAndSize_ReturnNextPageWithCursor() throws Exception {
+        List<ProductPaginationRequest.ProductRequest> products = List.of(
+                new ProductPaginationRequest.ProductRequest("Product 4", BigDecimal.valueOf(10.0), "Description 4", 5),
+                new ProductPaginationRequest.ProductRequest("Product 5", BigDecimal.valueOf(20.0), "Description 5", 10)
+        );
+        ProductCursorPaginationRequest response = new ProductCursorPaginationRequest(products, 2, "PRICE", "cDoyMC4wOjU");
+
+        given(productService.getProductsAfter("cDoxMC4wOjM", 2, ProductSortKey.PRICE)).willReturn(response);
+
+        mvc.perform(get("/api/products/cursor?after=cDoxMC4wOjM&size=2&sort=PRICE")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products", hasSize(2)))
+                .andExpect(jsonPath("$.limit", is(2)))
+                .andExpect(jsonPath("$.nextCursor", is("cDoyMC4wOjU")))
+                .andExpect(jsonPath("$.totalProducts").doesNotExist());
+
+        verify(productService).getProductsAfter("cDoxMC4wOjM", 2, ProductSortKey.PRICE);
+    }
+
+    @Test
+    void givenMalformedCursor_Return400Error() throws Exception {
+        String errorMessage = "Cursor not-a-cursor is not valid for sort order ID";
+        given(productService.getProductsAfter("not-a-cursor", 3, ProductSortKey.ID))
+                .willThrow(new InvalidCursorException(errorMessage));
+
+        mvc.perform(get("/api/products/cursor?after=not-a-cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is(errorMessage)));
+    }
+
+    @Test
+    void givenCursorSizeOutOfRange_Return400Error() throws Exception {
+        for (String size : List.of("0", "-1", "101", String.valueOf(Integer.MAX_VALUE))) {
+            mvc.perform(get("/api/products/cursor?size=" + size)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message", containsString("Invalid input: size")));
+        }
+
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void givenSearchQuery_ReturnRankedProducts() throws Exception {
+        List<ProductSearchRequest.ProductHit> hits = List.of(
+                new ProductSearchRequest.ProductHit(7L, "Red Shoes", "Leather shoes", BigDecimal.valueOf(50.0), 2.5),
+                new ProductSearchRequest.ProductHit(3L, "Socks", "Socks for red shoes", BigDecimal.valueOf(5.0), 0.8)
+        );
+        ProductSearchRequest response = new ProductSearchRequest("red shoes", hits, 0, 10, 2);
+
+        given(productService.searchProducts("red shoes", 0, 10)).willReturn(response);
+
+        mvc.perform(get("/api/products/search?q=red shoes")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products", hasSize(2)))
+                .andExpect(jsonPath("$.products[0].id", is(7)))
+                .andExpect(jsonPath("$.totalHits", is(2)));
+
+        verify(productService).searchProducts("red shoes", 0, 10);
+    }
+
+    @Test
+    void givenSearchPageOrSizeOutOfRange_Return400Error() throws Exception {
+        for (String paging : List.of("page=-1", "page=1001", "size=0", "size=101")) {
+            mvc.perform(get("/api/products/search?q=shoes&" + paging)
+                            .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message", containsString("Invalid input: " + paging.split("=")[0])));
+        }
+
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void givenCsvFeed_ReturnImportSummary() throws Exception {
+        ProductImportRequest summary = new ProductImportRequest(2, 1, 1,
+                List.of(new ProductImportRequest.RowError(3, "Insufficient stock for the product")), 12, 166.7);
+        given(productImportService.importProducts(any(), eq(ProductImportFormat.CSV), eq(1L))).willReturn(summary);
+
+        mvc.perform(post("/api/products/bulk?adminId=1")
+                        .contentType("text/csv")
+                        .content("name,price,description,stock\nLamp,19.99,Desk lamp,5\nChair,49.00,Office chair,0\n")
+                        .with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.errors[0].row", is(3)));
+
+        verify(productImportService).importProducts(any(), eq(ProductImportFormat.CSV), eq(1L));
+    }
+
+    @Test
+    @WithMockUser(authorities = "ADMIN")
+    void givenCatalog_StreamProductsAsNdJson() throws Exception {
+        given(productExportService.exportProducts(any())).willAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1,\"name\":\"Lamp\"}\n{\"id\":2,\"name\":\"Chair\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        });
+
+        MvcResult result = mvc.perform(get("/api/products/export").accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1,\"name\":\"Lamp\"}\n{\"id\":2,\"name\":\"Chair\"}\n"));
+    }
+}
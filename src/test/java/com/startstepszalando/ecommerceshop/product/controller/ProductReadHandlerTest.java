@@ -0,0 +1,105 @@
+package com.startstepszalando.ecommerceshop.product.controller;
+
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ReactiveProductRepository;
+import com.startstepszalando.ecommerceshop.product.service.ProductCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+class ProductReadHandlerTest {
+    private WebTestClient client;
+    private ProductCache productCache;
+
+    @BeforeEach
+    void setUp() {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(
+                "r2dbc:h2:mem:///" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        execute(connectionFactory,
+                "CREATE TABLE products (id BIGINT PRIMARY KEY, name VARCHAR(255), price DECIMAL(7, 2), " +
+                        "description VARCHAR(255), stock INT, version BIGINT)",
+                "INSERT INTO products VALUES (1, 'Sneaker', 59.90, 'Running sneaker', 12, 0)",
+                "INSERT INTO products VALUES (2, 'Boot', 129.00, 'Leather boot', 4, 3)",
+                "INSERT INTO products VALUES (3, 'Sandal', 24.50, 'Beach sandal', 30, 1)");
+
+        productCache = new ProductCache(100, Duration.ofMinutes(1),
+                new DefaultListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        ProductReadHandler handler = new ProductReadHandler(new ReactiveProductRepository(connectionFactory), productCache);
+        client = WebTestClient.bindToRouterFunction(handler.routes()).build();
+    }
+
+    @Test
+    void givenExistingProduct_ReturnItFromTheDatabase() {
+        client.get().uri("/api/products/2").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(2)
+                .jsonPath("$.name").isEqualTo("Boot")
+                .jsonPath("$.price").isEqualTo(129.00)
+                .jsonPath("$.stock").isEqualTo(4)
+                .jsonPath("$.version").isEqualTo(3);
+    }
+
+    @Test
+    void givenCachedProduct_ReturnTheCachedEntry() {
+        Product cached = new Product(1L, "Cached sneaker", new BigDecimal("59.90"), "Running sneaker", 11, null);
+        productCache.get(1L, id -> Optional.of(cached));
+
+        client.get().uri("/api/products/1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Cached sneaker")
+                .jsonPath("$.stock").isEqualTo(11);
+    }
+
+    @Test
+    void givenMissingProduct_ReturnNotFound() {
+        client.get().uri("/api/products/99").exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Product with id 99 is not found");
+    }
+
+    @Test
+    void givenPage_ReturnProductsAndTotals() {
+        client.get().uri("/api/products?page=1&size=2").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.products.length()").isEqualTo(1)
+                .jsonPath("$.products[0].name").isEqualTo("Sandal")
+                .jsonPath("$.currentPage").isEqualTo(1)
+                .jsonPath("$.offset").isEqualTo(2)
+                .jsonPath("$.limit").isEqualTo(2)
+                .jsonPath("$.totalPages").isEqualTo(2)
+                .jsonPath("$.totalProducts").isEqualTo(3);
+    }
+
+    @Test
+    void givenPageAfterTheLast_ReturnNotFound() {
+        client.get().uri("/api/products?page=5&size=2").exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Page 5 not found. Products has 2 pages");
+    }
+
+    private static void execute(ConnectionFactory connectionFactory, String... statements) {
+        Flux.usingWhen(connectionFactory.create(),
+                        connection -> Flux.fromArray(statements)
+                                .concatMap(sql -> Flux.from(connection.createStatement(sql).execute())
+                                        .flatMap(result -> Mono.from(result.getRowsUpdated()))),
+                        Connection::close)
+                .blockLast();
+    }
+}
@@ -0,0 +1,106 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.user.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.products.hot.enabled=true",
+        "app.products.hot.ids=" + HotStockQuotaTest.HOT_PRODUCT_ID,
+        "app.products.hot.stripes=2",
+        "app.products.hot.quota-per-stripe=20",
+        "app.products.hot.low-stock=100"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductService.class, ProductCache.class, ProductSearchIndex.class, HotStockQuota.class})
+class HotStockQuotaTest {
+    static final long HOT_PRODUCT_ID = 1000;
+    private static final int STOCK = 150;
+    private static final int BUYERS = 200;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private HotStockQuota hotStockQuota;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private UserService userService;
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void givenMoreBuyersThanStock_SellExactlyTheStockAcrossQuotaAndRow() throws Exception {
+        jdbcTemplate.update("INSERT INTO products (id, name, price, description, stock, version) VALUES (?, ?, ?, ?, ?, 0)",
+                HOT_PRODUCT_ID, "Hot Sneaker", 120, "Everyone wants one", STOCK);
+
+        // Two stripes of 20 are claimed, the row keeps the rest
+        hotStockQuota.rebalance();
+        assertThat(stockOf()).isEqualTo(STOCK - 40);
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        int sold = 0;
+        int rejected = 0;
+        try {
+            List<Future<?>> purchases = new ArrayList<>(BUYERS);
+            for (int i = 0; i < BUYERS; i++) {
+                purchases.add(executor.submit(() -> {
+                    start.await();
+                    productService.updateProductStock(HOT_PRODUCT_ID, 1);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> purchase : purchases) {
+                try {
+                    purchase.get();
+                    sold++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(InsufficientStockException.class);
+                    rejected++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(sold).isEqualTo(STOCK);
+        assertThat(rejected).isEqualTo(BUYERS - STOCK);
+        hotStockQuota.returnAll();
+        assertThat(stockOf()).isZero();
+    }
+
+    private int stockOf() {
+        return productRepository.findById(HOT_PRODUCT_ID).orElseThrow().getStock();
+    }
+}
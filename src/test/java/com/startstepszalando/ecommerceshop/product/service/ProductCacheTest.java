@@ -0,0 +1,78 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The write and the concurrent read need their own transactions, so the test runs without a wrapping one
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ProductCache.class)
+class ProductCacheTest {
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void givenReadDuringOpenWrite_ServeCommittedStockAfterCommit() {
+        Long id = productRepository.save(
+                new Product(null, "Sneaker", new BigDecimal("59.90"), "Running sneaker", 10, null)).getId();
+        assertThat(cachedStock(id)).isEqualTo(10);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Product product = productRepository.findById(id).orElseThrow();
+            product.setStock(7);
+            productRepository.saveAndFlush(product);
+            productCache.evict(id);
+
+            // Another request reads before the write commits and caches the old row again
+            Integer concurrentRead = CompletableFuture.supplyAsync(() -> cachedStock(id)).join();
+            assertThat(concurrentRead).isEqualTo(10);
+        });
+
+        assertThat(cachedStock(id)).isEqualTo(7);
+    }
+
+    @Test
+    void givenCallerModifiesItsCopy_KeepServingTheCachedValues() {
+        Long id = productRepository.save(
+                new Product(null, "Boot", new BigDecimal("129.00"), "Leather boot", 4, null)).getId();
+
+        Product first = productCache.get(id, productRepository::findById).orElseThrow();
+        first.setStock(0);
+        first.setName("Changed");
+
+        Product second = productCache.get(id, productRepository::findById).orElseThrow();
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getStock()).isEqualTo(4);
+        assertThat(second.getName()).isEqualTo("Boot");
+        assertThat(productCache.getIfPresent(id).orElseThrow().getStock()).isEqualTo(4);
+    }
+
+    private Integer cachedStock(Long id) {
+        return productCache.get(id, productRepository::findById).orElseThrow().getStock();
+    }
+}
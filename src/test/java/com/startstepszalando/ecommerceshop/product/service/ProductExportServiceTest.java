@@ -0,0 +1,54 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// H2 rejects the negative fetch size that makes Connector/J stream
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.products.export.fetch-size=1000"
+})
+@Import(ProductExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ProductExportServiceTest {
+    @Autowired
+    private ProductExportService productExportService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void givenCatalogLargerThanFetchSize_WriteEveryProductAsOneJsonLine() throws Exception {
+        for (int i = 0; i < 2500; i++) {
+            entityManager.persist(new Product(null, "Product " + i, new BigDecimal("1.50"), "Line\nbreak " + i, i + 1, null));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long exported = productExportService.exportProducts(out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(exported).isEqualTo(2500);
+        assertThat(lines).hasSize(2500);
+        assertThat(objectMapper.readTree(lines.get(2499)).get("name").asText()).isEqualTo("Product 2499");
+        assertThat(objectMapper.readTree(lines.get(0)).get("description").asText()).isEqualTo("Line\nbreak 0");
+    }
+}
@@ -0,0 +1,48 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.startstepszalando.ecommerceshop.exception.product.InvalidImportFileException;
+import com.startstepszalando.ecommerceshop.product.dto.ProductImportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductImportReaderTest {
+
+    @Test
+    void givenCsvWithUnterminatedQuote_RejectNamingTheLineItStartsOn() throws Exception {
+        ProductImportReader rows = csv("name,price,description,stock\n"
+                + "Lamp,10.00,Desk lamp,4\n"
+                + "Chair,35.00,\"Oak chair,2\n"
+                + "Table,80.00,Oak table,1\n");
+
+        assertThat(rows.next().product().getName()).isEqualTo("Lamp");
+        assertThatThrownBy(rows::next)
+                .isInstanceOf(InvalidImportFileException.class)
+                .hasMessageContaining("line 3")
+                .hasMessageContaining("never closed");
+    }
+
+    @Test
+    void givenCsvWithUnterminatedQuoteInLargeBody_StopBeforeBufferingTheRest() throws Exception {
+        StringBuilder feed = new StringBuilder("name,price,description,stock\nChair,35.00,\"Oak chair,2\n");
+        for (int i = 0; i < 10_000; i++) {
+            feed.append("Product ").append(i).append(",9.99,A product that is long enough to add up,1\n");
+        }
+        ProductImportReader rows = csv(feed.toString());
+
+        assertThatThrownBy(rows::next)
+                .isInstanceOf(InvalidImportFileException.class)
+                .hasMessageContaining("line 2")
+                .hasMessageContaining("longer than");
+    }
+
+    private static ProductImportReader csv(String feed) throws Exception {
+        return ProductImportReader.of(ProductImportFormat.CSV, new BufferedReader(new StringReader(feed)),
+                new ObjectMapper());
+    }
+}
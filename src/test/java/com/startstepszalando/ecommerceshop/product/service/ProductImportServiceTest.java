@@ -0,0 +1,129 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.startstepszalando.ecommerceshop.exception.product.InvalidImportFileException;
+import com.startstepszalando.ecommerceshop.product.dto.ProductImportFormat;
+import com.startstepszalando.ecommerceshop.product.dto.ProductImportRequest;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+
+// Names compare case-insensitively, as with MySQL's default collation
+@DataJpaTest(properties = {
+        "spring.test.database.replace=none",
+        "spring.datasource.url=jdbc:h2:mem:product-import;MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@TestPropertySource(properties = "app.products.import.batch-size=2")
+@Import({ProductImportService.class, ProductSearchIndex.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+class ProductImportServiceTest {
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private UserService userService;
+
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        admin = entityManager.persist(new User(null, "Admin", "import-admin@example.com", "password", Role.ADMIN));
+        given(userService.findById(admin.getId())).willReturn(Optional.of(admin));
+    }
+
+    @Test
+    void givenNdJsonFeed_ImportValidRowsAndReportTheRest() throws Exception {
+        entityManager.persist(new Product(null, "Kettle", new BigDecimal("30.00"), "Existing kettle", 3, admin));
+        String feed = """
+                {"name": "Kettle", "price": 30, "description": "Same as stored", "stock": 4}
+                {"name": "Toaster", "price": 24.5, "description": "Two slots", "stock": 8}
+
+                {"name": "Toaster", "price": 24.50, "description": "Repeated in the feed", "stock": 8}
+                {"name": "Mixer", "price": 80, "description": "No stock", "stock": 0}
+                {"name": "Blender"
+                {"name": "Grill", "price": 99.95, "description": "Contact grill", "stock": 2}
+                """;
+
+        ProductImportRequest summary = importFeed(feed, ProductImportFormat.NDJSON);
+
+        assertThat(summary.getReceived()).isEqualTo(6);
+        assertThat(summary.getImported()).isEqualTo(2);
+        assertThat(summary.getRejected()).isEqualTo(4);
+        assertThat(summary.getErrors()).extracting(ProductImportRequest.RowError::getRow)
+                .containsExactlyInAnyOrder(1L, 4L, 5L, 6L);
+        assertThat(productRepository.findByNameIn(List.of("Toaster", "Grill"))).hasSize(2);
+    }
+
+    @Test
+    void givenCsvFeedWithQuotedFields_ImportEveryRow() throws Exception {
+        String feed = "Stock,Name,Price,Description\n"
+                + "5,\"Desk, oak\",120.00,\"Solid oak desk\nwith \"\"cable\"\" tray\"\n"
+                + "7,Shelf,45.10,Wall shelf\n";
+
+        ProductImportRequest summary = importFeed(feed, ProductImportFormat.CSV);
+
+        assertThat(summary.getImported()).isEqualTo(2);
+        assertThat(summary.getErrors()).isEmpty();
+        assertThat(productRepository.hasEntityWithNameAndPrice("Desk, oak", new BigDecimal("120.00"))).isTrue();
+    }
+
+    @Test
+    void givenNamesDifferingOnlyInLetterCase_RejectThemAsDuplicates() throws Exception {
+        entityManager.persist(new Product(null, "Notebook", new BigDecimal("3.20"), "Lined notebook", 10, admin));
+        String feed = """
+                {"name": "notebook", "price": 3.20, "description": "Same as stored", "stock": 4}
+                {"name": "Pencil", "price": 0.80, "description": "HB pencil", "stock": 50}
+                {"name": "PENCIL", "price": 0.8, "description": "Repeated in the feed", "stock": 50}
+                """;
+
+        ProductImportRequest summary = importFeed(feed, ProductImportFormat.NDJSON);
+
+        assertThat(summary.getImported()).isEqualTo(1);
+        assertThat(summary.getErrors()).extracting(ProductImportRequest.RowError::getRow)
+                .containsExactlyInAnyOrder(1L, 3L);
+        assertThat(productRepository.hasEntityWithNameAndPrice("notebook", new BigDecimal("3.20"))).isTrue();
+    }
+
+    @Test
+    void givenCsvFeedWithoutRequiredColumns_Reject() {
+        assertThatThrownBy(() -> importFeed("name,price\nLamp,10\n", ProductImportFormat.CSV))
+                .isInstanceOf(InvalidImportFileException.class)
+                .hasMessageContaining("description, stock");
+    }
+
+    private ProductImportRequest importFeed(String feed, ProductImportFormat format) throws Exception {
+        return productImportService.importProducts(
+                new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8)), format, admin.getId());
+    }
+}
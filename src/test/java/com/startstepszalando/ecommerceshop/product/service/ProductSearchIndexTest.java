@@ -0,0 +1,66 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+    private final ProductSearchIndex index = new ProductSearchIndex();
+
+    @Test
+    void givenQuery_ReturnProductsMatchingEveryTermRankedByName() {
+        index.index(1L, "Running shoes", "Lightweight shoes for the road");
+        index.index(2L, "Trail socks", "Socks to wear with running shoes");
+        index.index(3L, "Running shorts", "Breathable shorts");
+
+        ProductSearchIndex.Result result = index.search("Running SHOES", 0, 10);
+
+        assertEquals(2, result.total());
+        assertEquals(List.of(1L, 2L), productIds(result));
+    }
+
+    @Test
+    void givenUpdatedAndRemovedProducts_ReturnOnlyCurrentText() {
+        index.index(1L, "Blue mug", "Ceramic");
+        index.index(2L, "Blue plate", "Ceramic");
+        index.index(1L, "Green mug", "Ceramic");
+        index.remove(2L);
+
+        assertTrue(index.search("blue", 0, 10).hits().isEmpty());
+        assertEquals(List.of(1L), productIds(index.search("green ceramic", 0, 10)));
+    }
+
+    @Test
+    void givenPageBeyondFirst_ReturnNextSliceAndFullTotal() {
+        for (long id = 1; id <= 5000; id++) {
+            index.index(id, "Widget " + id, id % 2 == 0 ? "even widget" : "odd");
+        }
+        for (long id = 1; id <= 5000; id += 3) {
+            index.remove(id);
+        }
+
+        ProductSearchIndex.Result page = index.search("widget", 2, 5);
+
+        assertEquals(3333, page.total());
+        assertEquals(5, page.hits().size());
+        assertTrue(page.hits().stream().allMatch(hit -> (hit.productId() - 1) % 3 != 0));
+    }
+
+    @Test
+    void givenPageWhoseOffsetOverflowsAnInt_ReturnNoHitsAndFullTotal() {
+        index.index(1L, "Widget", "Blue widget");
+        index.index(2L, "Widget", "Red widget");
+
+        ProductSearchIndex.Result page = index.search("widget", Integer.MAX_VALUE / 10, 100);
+
+        assertEquals(2, page.total());
+        assertTrue(page.hits().isEmpty());
+    }
+
+    private List<Long> productIds(ProductSearchIndex.Result result) {
+        return result.hits().stream().map(ProductSearchIndex.Hit::productId).toList();
+    }
+}
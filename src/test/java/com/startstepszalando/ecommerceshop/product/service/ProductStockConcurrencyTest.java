@@ -0,0 +1,155 @@
+package com.startstepszalando.ecommerceshop.product.service;
+
+import com.startstepszalando.ecommerceshop.exception.product.InsufficientStockException;
+import com.startstepszalando.ecommerceshop.exception.product.ProductVersionConflictException;
+import com.startstepszalando.ecommerceshop.product.model.Product;
+import com.startstepszalando.ecommerceshop.product.repository.ProductRepository;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import com.startstepszalando.ecommerceshop.user.repository.UserRepository;
+import com.startstepszalando.ecommerceshop.user.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+
+// Every write commits on its own, as it would in production, so the test runs without a wrapping transaction
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ProductService.class, ProductCache.class, ProductSearchIndex.class})
+class ProductStockConcurrencyTest {
+    private static final int THREADS = 64;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private UserService userService;
+
+    @AfterEach
+    void tearDown() {
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void givenConcurrentDecrementsOfOneProduct_LoseNoUpdates() throws Exception {
+        Product product = productRepository.save(
+                new Product(null, "Hot Sneaker", new BigDecimal("120.00"), "Everyone wants one", THREADS, null));
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> decrements = new ArrayList<>(THREADS);
+            for (int i = 0; i < THREADS; i++) {
+                decrements.add(executor.submit(() -> {
+                    start.await();
+                    productService.updateProductStock(product.getId(), 1);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> decrement : decrements) {
+                decrement.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Product sold = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(sold.getStock()).isZero();
+        assertThat(sold.getVersion()).isEqualTo(product.getVersion() + THREADS);
+        assertThatThrownBy(() -> productService.updateProductStock(product.getId(), 1))
+                .isInstanceOf(InsufficientStockException.class);
+    }
+
+    @Test
+    void givenUpdateBasedOnStaleVersion_RejectItAndKeepTheStockChange() throws Exception {
+        User admin = userRepository.save(new User(null, "Admin", "stock-admin@example.com", "password", Role.ADMIN));
+        given(userService.findById(admin.getId())).willReturn(Optional.of(admin));
+        Product product = productRepository.save(
+                new Product(null, "Desk Lamp", new BigDecimal("25.00"), "Warm light", 10, admin));
+
+        productService.updateProductStock(product.getId(), 3);
+
+        Product edit = new Product(null, "Desk Lamp", new BigDecimal("22.00"), "Warm light, now cheaper", 10, null);
+        edit.setVersion(product.getVersion());
+        assertThatThrownBy(() -> productService.updateProduct(product.getId(), edit, admin.getId()))
+                .isInstanceOf(ProductVersionConflictException.class);
+
+        Product current = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(current.getStock()).isEqualTo(7);
+        assertThat(current.getPrice()).isEqualByComparingTo("25.00");
+
+        edit.setVersion(current.getVersion());
+        Product updated = productService.updateProduct(product.getId(), edit, admin.getId());
+        assertThat(updated.getPrice()).isEqualByComparingTo("22.00");
+        assertThat(updated.getVersion()).isEqualTo(current.getVersion() + 1);
+    }
+
+    @Test
+    void givenConcurrentWriteDuringAttempt_RetryAfterVersionConflictAndCountIt() {
+        Product product = productRepository.save(
+                new Product(null, "Wall Clock", new BigDecimal("40.00"), "Ticks quietly", 10, null));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StockRetry stockRetry = new StockRetry(new TransactionTemplate(transactionManager), 3, Duration.ZERO,
+                Duration.ZERO, meterRegistry);
+        TransactionTemplate concurrentWriter = new TransactionTemplate(transactionManager);
+        concurrentWriter.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicInteger attempts = new AtomicInteger();
+
+        Product renamed = stockRetry.execute("renameProduct", () -> {
+            Product current = productRepository.findById(product.getId()).orElseThrow();
+            if (attempts.incrementAndGet() == 1) {
+                // Another writer commits between this attempt's read and its flush
+                concurrentWriter.executeWithoutResult(status -> productRepository.findById(product.getId())
+                        .orElseThrow().setStock(9));
+            }
+            current.setName("Wall Clock, silent");
+            return current;
+        });
+
+        assertThat(attempts).hasValue(2);
+        assertThat(renamed.getVersion()).isEqualTo(product.getVersion() + 2);
+        Product stored = productRepository.findById(product.getId()).orElseThrow();
+        assertThat(stored.getName()).isEqualTo("Wall Clock, silent");
+        assertThat(stored.getStock()).isEqualTo(9);
+        assertThat(meterRegistry.get("products.stock.contention")
+                .tag("operation", "renameProduct")
+                .tag("outcome", "retried")
+                .counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.find("products.stock.contention").tag("outcome", "exhausted").counter()).isNull();
+    }
+}
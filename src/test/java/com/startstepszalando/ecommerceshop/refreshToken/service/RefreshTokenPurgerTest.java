@@ -0,0 +1,66 @@
+package com.startstepszalando.ecommerceshop.refreshToken.service;
+
+import com.startstepszalando.ecommerceshop.refreshToken.model.RefreshToken;
+import com.startstepszalando.ecommerceshop.refreshToken.repository.RefreshTokenRepository;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.jwt.refresh.purge-batch-size=2",
+        "app.jwt.refresh.purge-pause=PT0S"
+})
+@Import({RefreshTokenPurger.class, SimpleMeterRegistry.class})
+class RefreshTokenPurgerTest {
+    @Autowired
+    private RefreshTokenPurger refreshTokenPurger;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void givenExpiredAndLiveTokens_PurgeExpiredInChunksAndReportTableSize() {
+        User user = entityManager.persist(new User(null, "Returning", "returning@example.com", "password", Role.CUSTOMER));
+        for (int i = 1; i <= 5; i++) {
+            persistToken(user, Instant.now().minus(Duration.ofDays(i)));
+        }
+        persistToken(user, Instant.now().plus(Duration.ofDays(1)));
+        persistToken(user, Instant.now().plus(Duration.ofDays(2)));
+        entityManager.flush();
+
+        refreshTokenPurger.purgeExpired();
+
+        assertThat(refreshTokenRepository.count()).isEqualTo(2);
+        assertThat(meterRegistry.get("refresh_tokens.purged").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("refresh_tokens.rows").gauge().value()).isEqualTo(2);
+    }
+
+    private void persistToken(User user, Instant expiryDate) {
+        byte[] hash = new byte[32];
+        ThreadLocalRandom.current().nextBytes(hash);
+        RefreshToken token = new RefreshToken();
+        token.setUser(user);
+        token.setTokenHash(hash);
+        token.setExpiryDate(expiryDate);
+        entityManager.persist(token);
+    }
+}
@@ -0,0 +1,82 @@
+package com.startstepszalando.ecommerceshop.refreshToken.service;
+
+import com.startstepszalando.ecommerceshop.exception.token.TokenRefreshException;
+import com.startstepszalando.ecommerceshop.jwt.JwtService;
+import com.startstepszalando.ecommerceshop.refreshToken.dto.TokenRefreshResponse;
+import com.startstepszalando.ecommerceshop.refreshToken.repository.RefreshTokenRepository;
+import com.startstepszalando.ecommerceshop.user.model.Role;
+import com.startstepszalando.ecommerceshop.user.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.jwt.expiration-ms=60000"
+})
+@Import(RefreshTokenService.class)
+class RefreshTokenServiceTest {
+    private final JwtService jwtService = new JwtService("test", 60_000,
+            "dGVzdC1zaWduaW5nLWtleS1vZi1hdC1sZWFzdC0zMi1ieXRlcy1sb25n");
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persist(new User(null, "Multi Device", "devices@example.com", "password", Role.CUSTOMER));
+    }
+
+    @Test
+    void givenTwoDevices_RefreshEachWithOneLookupAndOneUpdate() {
+        String phone = refreshTokenService.createOrUpdateRefreshToken(user.getId()).getToken();
+        String laptop = refreshTokenService.createOrUpdateRefreshToken(user.getId()).getToken();
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        TokenRefreshResponse refreshed = refreshTokenService.refreshToken(phone, jwtService);
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(phone);
+        assertThat(jwtService.getPrincipalFromClaims(jwtService.parseValidClaims(refreshed.getAccessToken())).getId())
+                .isEqualTo(user.getId());
+        assertThat(refreshTokenService.refreshToken(laptop, jwtService).getRefreshToken()).isNotEqualTo(laptop);
+        assertThat(refreshTokenRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void givenRotatedTokenPresentedAgain_RevokeTheWholeFamily() {
+        String original = refreshTokenService.createOrUpdateRefreshToken(user.getId()).getToken();
+        String rotated = refreshTokenService.refreshToken(original, jwtService).getRefreshToken();
+        entityManager.clear();
+
+        assertThatThrownBy(() -> refreshTokenService.refreshToken(original, jwtService))
+                .isInstanceOf(TokenRefreshException.class);
+        assertThatThrownBy(() -> refreshTokenService.refreshToken(rotated, jwtService))
+                .isInstanceOf(TokenRefreshException.class);
+        assertThat(refreshTokenRepository.count()).isZero();
+    }
+}
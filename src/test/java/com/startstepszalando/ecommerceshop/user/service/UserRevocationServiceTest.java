@@ -0,0 +1,76 @@
+package com.startstepszalando.ecommerceshop.user.service;
+
+import com.startstepszalando.ecommerceshop.jwt.JwtPrincipalCache;
+import com.startstepszalando.ecommerceshop.refreshToken.service.RefreshTokenService;
+import com.startstepszalando.ecommerceshop.user.model.UserRevocation;
+import com.startstepszalando.ecommerceshop.user.repository.UserRevocationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "app.jwt.expiration-ms=60000"
+})
+@Import({UserRevocationService.class, JwtPrincipalCache.class})
+class UserRevocationServiceTest {
+    @Autowired
+    private UserRevocationService userRevocationService;
+
+    @Autowired
+    private UserRevocationRepository userRevocationRepository;
+
+    @Autowired
+    private JwtPrincipalCache principalCache;
+
+    @MockBean
+    private RefreshTokenService refreshTokenService;
+
+    @Test
+    void givenRevokedUser_RejectTokensIssuedBeforeAndDropCachedPrincipal() {
+        Date issuedBefore = Date.from(Instant.now().minusSeconds(5));
+        Date expiresAt = Date.from(Instant.now().plusSeconds(60));
+        principalCache.put("token-of-7", principal(7L), expiresAt);
+        principalCache.put("token-of-8", principal(8L), expiresAt);
+
+        userRevocationService.revoke(7L);
+
+        verify(refreshTokenService).deleteByUserId(7L);
+        assertThat(userRevocationService.isRevoked(7L, issuedBefore)).isTrue();
+        assertThat(userRevocationService.isRevoked(7L, Date.from(Instant.now().plusSeconds(2)))).isFalse();
+        assertThat(userRevocationService.isRevoked(8L, issuedBefore)).isFalse();
+        assertThat(principalCache.get("token-of-7")).isNull();
+        assertThat(principalCache.get("token-of-8")).isNotNull();
+    }
+
+    @Test
+    void givenRevocationFromAnotherInstance_PickItUpOnRefreshAndPurgeExpiredOnes() {
+        Instant now = Instant.now();
+        userRevocationRepository.save(new UserRevocation(9L, now));
+        userRevocationRepository.save(new UserRevocation(10L, now.minus(Duration.ofMinutes(2))));
+        Date issuedBefore = Date.from(now.minusSeconds(5));
+
+        assertThat(userRevocationService.isRevoked(9L, issuedBefore)).isFalse();
+
+        userRevocationService.refresh();
+
+        assertThat(userRevocationService.isRevoked(9L, issuedBefore)).isTrue();
+        // Older than the token lifetime: every token it covered has expired
+        assertThat(userRevocationRepository.findAll()).extracting(UserRevocation::getUserId).containsExactly(9L);
+    }
+
+    private static UserImpl principal(Long id) {
+        return new UserImpl(id, "user" + id + "@example.com", null, List.of(new SimpleGrantedAuthority("CUSTOMER")));
+    }
+}